@@ -0,0 +1,134 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбиение имен на части (горбы) camelCase: getTestField — get, Test, Field;
+ * XMLParser — XML, Parser; MAX_VALUE — MAX, VALUE; sha256sum — sha, 256, sum.
+ * <p>
+ * Для каждого имени индексируются последовательности первых букв подряд идущих частей
+ * (getTestField — g, gt, gtf, t, tf, f), поэтому запрос gTF находит имя одним термином.
+ * В запросе новую часть начинает каждая заглавная буква.
+ */
+final class CamelHumps {
+
+    /** Наибольшее число частей в индексируемой последовательности первых букв. */
+    static final int MAX_HUMPS = 8;
+
+    private CamelHumps() {
+    }
+
+    /**
+     * Части имени. Подчеркивания, знаки доллара и прочие символы только разделяют части.
+     */
+    static List<String> split(String name) {
+        return split(name, false);
+    }
+
+    /**
+     * Части запроса: в отличие от имени, каждая заглавная буква начинает новую часть.
+     */
+    static List<String> splitQuery(String query) {
+        return split(query, true);
+    }
+
+    /**
+     * Последовательности первых букв (в нижнем регистре) подряд идущих частей имени,
+     * не длиннее {@link #MAX_HUMPS}, через пробел.
+     */
+    static String initialsTokens(String name) {
+        int[] initials = initials(split(name)).codePoints().toArray();
+        StringBuilder tokens = new StringBuilder();
+        for (int start = 0; start < initials.length; start++) {
+            for (int end = start + 1; end <= Math.min(initials.length, start + MAX_HUMPS); end++) {
+                if (!tokens.isEmpty()) {
+                    tokens.append(' ');
+                }
+                tokens.append(new String(initials, start, end - start));
+            }
+        }
+        return tokens.toString();
+    }
+
+    /**
+     * Первые буквы не более чем {@link #MAX_HUMPS} первых частей в нижнем регистре.
+     */
+    static String initials(List<String> humps) {
+        StringBuilder initials = new StringBuilder();
+        for (int i = 0; i < Math.min(humps.size(), MAX_HUMPS); i++) {
+            initials.appendCodePoint(Character.toLowerCase(humps.get(i).codePointAt(0)));
+        }
+        return initials.toString();
+    }
+
+    /**
+     * Достаточно ли совпадения первых букв: да, если каждая часть запроса — одна буква,
+     * частей не больше {@link #MAX_HUMPS} и регистр не учитывается.
+     */
+    static boolean isInitialsOnly(List<String> queryHumps, boolean caseSensitive) {
+        if (caseSensitive || queryHumps.size() > MAX_HUMPS) {
+            return false;
+        }
+        for (String hump : queryHumps) {
+            if (hump.codePointCount(0, hump.length()) > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Начинаются ли подряд идущие части имени с соответствующих частей запроса.
+     */
+    static boolean matches(List<String> nameHumps, List<String> queryHumps, boolean caseSensitive) {
+        for (int start = 0; start + queryHumps.size() <= nameHumps.size(); start++) {
+            boolean matches = true;
+            for (int i = 0; i < queryHumps.size() && matches; i++) {
+                String hump = queryHumps.get(i);
+                matches = nameHumps.get(start + i).regionMatches(!caseSensitive, 0, hump, 0, hump.length());
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> split(String text, boolean query) {
+        List<String> humps = new ArrayList<>();
+        int start = -1;
+        int previous = 0;
+        for (int i = 0; i < text.length(); ) {
+            int current = text.codePointAt(i);
+            int next = i + Character.charCount(current);
+            if (!Character.isLetterOrDigit(current)) {
+                if (start >= 0) {
+                    humps.add(text.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            } else if (startsHump(previous, current, next < text.length() ? text.codePointAt(next) : 0, query)) {
+                humps.add(text.substring(start, i));
+                start = i;
+            }
+            previous = current;
+            i = next;
+        }
+        if (start >= 0) {
+            humps.add(text.substring(start));
+        }
+        return humps;
+    }
+
+    private static boolean startsHump(int previous, int current, int next, boolean query) {
+        if (Character.isDigit(current) != Character.isDigit(previous)) {
+            return true;
+        }
+        if (!Character.isUpperCase(current)) {
+            return false;
+        }
+        return query || !Character.isUpperCase(previous) || Character.isLowerCase(next);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import org.apache.lucene.search.Query;
+
+import java.util.List;
+
+/**
+ * Оставляет кандидатов, имя которых совпадает с запросом по частям camelCase:
+ * подряд идущие части имени начинаются с частей запроса (getTeFi — getTestField).
+ */
+final class CamelHumpsQuery extends ContentVerifyingQuery {
+
+    private final List<String> humps;
+    private final boolean caseSensitive;
+
+    CamelHumpsQuery(Query candidates, List<String> humps, boolean caseSensitive) {
+        super(candidates);
+        this.humps = List.copyOf(humps);
+        this.caseSensitive = caseSensitive;
+    }
+
+    @Override
+    protected boolean matches(String content) {
+        return CamelHumps.matches(CamelHumps.split(content), humps, caseSensitive);
+    }
+
+    @Override
+    protected ContentVerifyingQuery withCandidates(Query candidates) {
+        return new CamelHumpsQuery(candidates, humps, caseSensitive);
+    }
+
+    @Override
+    public String toString(String field) {
+        return "camel(" + candidates.toString(field) + ", " + humps + (caseSensitive ? ", cs)" : ")");
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return sameClassAs(other)
+                && candidates.equals(((CamelHumpsQuery) other).candidates)
+                && humps.equals(((CamelHumpsQuery) other).humps)
+                && caseSensitive == ((CamelHumpsQuery) other).caseSensitive;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * classHash() + candidates.hashCode()) + humps.hashCode()) + Boolean.hashCode(caseSensitive);
+    }
+}
@@ -1,8 +1,18 @@
 package org.example;
 
-import java.util.Scanner;
+import org.apache.lucene.search.Query;
+import sun.misc.Signal;
 
-import static org.example.JavaSourceIndexer.indexJavaSources;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
 
 /**
  * Основной класс консольного приложения CodeSearch.
@@ -11,10 +21,29 @@ import static org.example.JavaSourceIndexer.indexJavaSources;
  */
 public class CodeSearch {
 
+    private static final int DEFAULT_FACET_TOP = 20;
+
     private static boolean running = true;
 
+    /** Бюджет выполняемого запроса или пакета; Ctrl-C отменяет его. */
+    private static volatile QueryBudget currentQuery;
+
+    private static boolean interruptHandlerInstalled;
+
+    private static SearchServer server;
+
+    /**
+     * Без аргументов запускает интерактивный режим, с аргументами выполняет одну команду:
+     * CodeSearch find method main. CodeSearch serve [--port n] запускает только сервер поиска
+     * и работает до завершения процесса.
+     */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            runCommand(args);
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
+        installInterruptHandler();
 
         System.out.println("Добро пожаловать в CodeSearch! Введите 'help' чтобы увидеть документацию:)");
 
@@ -26,27 +55,8 @@ public class CodeSearch {
                 continue;
             }
 
-            String[] parts = input.split("\\s+");
-            String command = parts[0];
-
             try {
-                switch (command.toLowerCase()) {
-                    case "index":
-                        handleIndexCommand(parts);
-                        break;
-                    case "find":
-                        handleFindCommand(parts);
-                        break;
-                    case "help":
-                        showHelp();
-                        break;
-                    case "exit":
-                        running = false;
-                        System.out.println("Завершение работы приложения :-(");
-                        break;
-                    default:
-                        System.out.println("Неизвестная команда. Введите 'help' чтобы увидеть документацию:)");
-                }
+                executeCommand(splitCommand(input));
             } catch (Exception e) {
                 System.err.println("Ошибка выполнения команды: " + e.getMessage());
                 e.printStackTrace();
@@ -56,104 +66,697 @@ public class CodeSearch {
         scanner.close();
     }
 
+    private static void executeCommand(String[] parts) {
+        switch (parts[0].toLowerCase()) {
+            case "index":
+                handleIndexCommand(parts);
+                break;
+            case "find":
+                handleFindCommand(parts);
+                break;
+            case "count":
+                handleCountCommand(parts);
+                break;
+            case "facet":
+                handleFacetCommand(parts);
+                break;
+            case "batch":
+                handleBatchCommand(parts);
+                break;
+            case "cache":
+                showCacheStatistics();
+                break;
+            case "limits":
+                handleLimitsCommand(parts);
+                break;
+            case "serve":
+                handleServeCommand(parts);
+                break;
+            case "help":
+                showHelp();
+                break;
+            case "exit":
+                running = false;
+                stopServer();
+                stopWatcher();
+                IndexSearchers.close();
+                System.out.println("Завершение работы приложения :-(");
+                break;
+            default:
+                System.out.println("Неизвестная команда. Введите 'help' чтобы увидеть документацию:)");
+        }
+    }
+
+    /**
+     * Выполняет одну команду из аргументов запуска. Команда find передается серверу поиска,
+     * если он запущен (см. {@link DaemonClient}): так запрос из скрипта не открывает индекс
+     * и не загружает Lucene. Без сервера, как и остальные команды, она выполняется в процессе.
+     */
+    private static void runCommand(String[] args) {
+        if (args[0].equalsIgnoreCase("serve")) {
+            runServer(args);
+            return;
+        }
+        if (args[0].equalsIgnoreCase("find") && findOnServer(args)) {
+            return;
+        }
+        try {
+            executeCommand(args);
+        } catch (Exception e) {
+            System.err.println("Ошибка выполнения команды: " + e.getMessage());
+        } finally {
+            stopWatcher();
+            IndexSearchers.close();
+        }
+    }
+
+    /**
+     * Передает команду find серверу поиска. Возвращает false, если сервер не запущен;
+     * классы индекса при этом не загружаются.
+     */
+    private static boolean findOnServer(String[] args) {
+        FindCommand command = parseFindCommand(args);
+        if (command == null) {
+            // Сообщение об ошибке уже выведено.
+            return true;
+        }
+        long timeoutMillis = command.timeout() == null ? 0 : command.timeout().toMillis();
+        try {
+            return DaemonClient.find(SocketProtocol.DEFAULT_SOCKET, new SocketProtocol.Request(command.request(), timeoutMillis),
+                    createSink(command.json()));
+        } catch (Exception e) {
+            System.err.println("Ошибка поиска: " + e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Режим сервера без консоли: сервер останавливается при завершении процесса, в том числе по Ctrl-C.
+     */
+    private static void runServer(String[] args) {
+        int port = parsePort(args);
+        if (port < 0) {
+            System.out.println("Ошибка: Укажите порт числом. Пример: serve [--port <n>]");
+            return;
+        }
+        SearchServer daemon;
+        try {
+            daemon = SearchServer.start(port, SocketProtocol.DEFAULT_SOCKET);
+        } catch (IOException e) {
+            System.err.println("Не удалось запустить сервер поиска: " + e.getMessage());
+            return;
+        }
+        System.out.println("Сервер поиска запущен: " + daemon.getUri());
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка при остановке сервера: " + e.getMessage());
+            }
+            IndexSearchers.close();
+            main.interrupt();
+        }));
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Запускает сервер поиска в фоне; консоль продолжает работать с тем же индексом.
+     */
+    private static void handleServeCommand(String[] parts) {
+        if (server != null) {
+            System.out.println("Сервер поиска уже запущен: " + server.getUri());
+            return;
+        }
+        int port = parsePort(parts);
+        if (port < 0) {
+            System.out.println("Ошибка: Укажите порт числом. Пример: serve [--port <n>]");
+            return;
+        }
+        try {
+            server = SearchServer.start(port, SocketProtocol.DEFAULT_SOCKET);
+            System.out.println("Сервер поиска запущен: " + server.getUri());
+        } catch (IOException e) {
+            System.out.println("Ошибка при запуске сервера поиска: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Порт из аргументов serve [--port n]: по умолчанию {@link SearchServer#DEFAULT_PORT}, -1 при ошибке.
+     */
+    private static int parsePort(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].equalsIgnoreCase("--port") && i + 1 < parts.length) {
+                try {
+                    int port = Integer.parseInt(parts[i + 1]);
+                    return port >= 0 && port <= 65535 ? port : -1;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return SearchServer.DEFAULT_PORT;
+    }
+
+    private static void stopServer() {
+        if (server != null) {
+            try {
+                server.close();
+                System.out.println("Сервер поиска остановлен.");
+            } catch (IOException e) {
+                System.err.println("Ошибка при остановке сервера: " + e.getMessage());
+            }
+            server = null;
+        }
+    }
+
+    /**
+     * Ctrl-C во время запроса отменяет запрос: выводятся найденные результаты, и работа продолжается.
+     * Вне запроса приложение завершается, как без обработчика.
+     */
+    private static synchronized void installInterruptHandler() {
+        if (interruptHandlerInstalled) {
+            return;
+        }
+        try {
+            Signal.handle(new Signal("INT"), signal -> {
+                QueryBudget query = currentQuery;
+                if (query != null) {
+                    query.cancel();
+                } else {
+                    System.exit(130);
+                }
+            });
+            interruptHandlerInstalled = true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Не удалось установить обработчик Ctrl-C: " + e.getMessage());
+        }
+    }
+
     private static void handleIndexCommand(String[] parts) {
-        if (parts.length < 2) {
-            System.out.println("Ошибка: Укажите путь для индексации. Пример: index <path>");
+        String path = null;
+        boolean watch = false;
+        IndexOptions options = new IndexOptions();
+        List<String> includes = new ArrayList<>();
+        List<String> excludes = new ArrayList<>(SourceDiscovery.DEFAULT_EXCLUDES);
+
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].equalsIgnoreCase("--full")) {
+                options.setFullRebuild(true);
+            } else if (parts[i].equalsIgnoreCase("--watch")) {
+                watch = true;
+            } else if (parts[i].equalsIgnoreCase("--include") && i + 1 < parts.length) {
+                includes.add(parts[++i]);
+            } else if (parts[i].equalsIgnoreCase("--exclude") && i + 1 < parts.length) {
+                excludes.add(parts[++i]);
+            } else if (parts[i].equalsIgnoreCase("--literals-only")) {
+                options.setLiteralsOnly(true);
+            } else if (parts[i].equalsIgnoreCase("--shards") && i + 1 < parts.length) {
+                int shards = parsePositive(parts[++i]);
+                if (shards <= 0) {
+                    System.out.println("Ошибка: Значение [--shards] должно быть положительным.");
+                    return;
+                }
+                options.setShardCount(shards);
+            } else if (parts[i].equalsIgnoreCase("--stream-threshold") && i + 1 < parts.length) {
+                long threshold;
+                try {
+                    threshold = Long.parseLong(parts[++i]);
+                } catch (NumberFormatException e) {
+                    threshold = -1;
+                }
+                if (threshold < 0) {
+                    System.out.println("Ошибка: Значение [--stream-threshold] должно быть числом байт.");
+                    return;
+                }
+                options.setStreamingThreshold(threshold);
+            } else if (path == null) {
+                path = parts[i];
+            }
+        }
+
+        if (path == null) {
+            System.out.println("Ошибка: Укажите путь для индексации. Пример: index <path> [--full] [--watch]");
             return;
         }
 
-        String path = parts[1];
+        if (!includes.isEmpty()) {
+            options.setIncludeGlobs(includes);
+        }
+        options.setExcludeGlobs(excludes);
 
-        System.out.println("Запуск индексации для: " + path);
-        if (indexProject(path)) {
-            System.out.println("Индексация завершена успешно для: " + path);
-        } else {
-            System.out.println("Ошибка в процессе индексирования: " + path);
+        // Индексация идет через общий с сервером поиска Indexing: прежнее наблюдение прекращается,
+        // а пока сервер индексирует по своему запросу, консоль индекс не изменяет.
+        System.out.println("Запуск " + (options.isFullRebuild() ? "полной" : "инкрементальной") + " индексации для: " + path);
+        try {
+            if (!Indexing.tryIndex(path, options, watch)) {
+                System.out.println("Ошибка: Индексация уже выполняется сервером поиска, повторите позже.");
+            } else if (watch) {
+                System.out.println("Индексация завершена, наблюдение за изменениями запущено для: " + path);
+            } else {
+                System.out.println("Индексация завершена успешно для: " + path);
+            }
+        } catch (Exception e) {
+            System.out.println(watch ? "Ошибка при запуске наблюдения за: " + path : "Ошибка в процессе индексирования: " + path);
         }
     }
 
     private static void handleFindCommand(String[] parts) {
+        FindCommand command = parseFindCommand(parts);
+        if (command == null) {
+            return;
+        }
+        Duration timeout = command.timeout() != null ? command.timeout() : QueryExecutor.getTimeout();
+        QueryBudget budget = QueryBudget.unlimited().child(timeout);
+        currentQuery = budget;
+        try {
+            QueryExecutor.execute(command.request(), createSink(command.json()), budget);
+        } catch (Exception e) {
+            System.err.println("Ошибка поиска: " + e.getMessage());
+        } finally {
+            currentQuery = null;
+        }
+    }
+
+    /**
+     * Разобранная команда find: запрос, формат вывода и время выполнения (null — по умолчанию).
+     */
+    private record FindCommand(SearchRequest request, boolean json, Duration timeout) {
+    }
+
+    /**
+     * Разбирает аргументы команды find. При ошибке выводит сообщение и возвращает null.
+     */
+    private static FindCommand parseFindCommand(String[] parts) {
         if (parts.length < 3) {
             System.out.println("Ошибка: Укажите тип и запрос. Пример: find <type> <query> [-f, -cs]");
-            return;
+            return null;
         }
 
         String type = parts[1];
-        String query = parts[2];
-        boolean isFuzzy = false;
+        String rawQuery = null;
+        MatchMode mode = MatchMode.EXACT;
         boolean isCaseSensitive = false;
+        int limit = SearchRequest.NO_LIMIT;
+        boolean json = false;
+        int page = 1;
+        Duration timeout = null;
 
-        for (int i = 3; i < parts.length; i++) {
+        for (int i = 2; i < parts.length; i++) {
             if (parts[i].equalsIgnoreCase("-f")) {
-                isFuzzy = true;
+                mode = MatchMode.FUZZY;
+            } else if (parts[i].equalsIgnoreCase("--regex")) {
+                mode = MatchMode.REGEX;
+            } else if (parts[i].equalsIgnoreCase("--prefix")) {
+                mode = MatchMode.PREFIX;
+            } else if (parts[i].equalsIgnoreCase("--camel")) {
+                mode = MatchMode.CAMEL;
+            } else if (parts[i].equalsIgnoreCase("--text")) {
+                mode = MatchMode.TEXT;
             } else if (parts[i].equalsIgnoreCase("-cs")) {
                 isCaseSensitive = true;
+            } else if (parts[i].equalsIgnoreCase("--limit") && i + 1 < parts.length) {
+                limit = parsePositive(parts[++i]);
+            } else if (parts[i].equalsIgnoreCase("--page") && i + 1 < parts.length) {
+                page = parsePositive(parts[++i]);
+            } else if (parts[i].equalsIgnoreCase("--json")) {
+                json = true;
+            } else if (parts[i].equalsIgnoreCase("--timeout") && i + 1 < parts.length) {
+                int millis = parsePositive(parts[++i]);
+                if (millis <= 0) {
+                    System.out.println("Ошибка: Значение [--timeout] должно быть положительным числом миллисекунд.");
+                    return null;
+                }
+                timeout = Duration.ofMillis(millis);
+            } else if (rawQuery == null) {
+                rawQuery = parts[i];
             }
         }
+        if (rawQuery == null) {
+            System.out.println("Ошибка: Укажите тип и запрос. Пример: find <type> <query> [-f, -cs]");
+            return null;
+        }
+        if (limit <= 0 || page <= 0) {
+            System.out.println("Ошибка: Значения [--limit] и [--page] должны быть положительными.");
+            return null;
+        }
+        SymbolType symbolType = parseType(type);
+        if (symbolType == null) {
+            System.out.println("Неизвестный тип для поиска: " + type);
+            return null;
+        }
+        // В полнотекстовом запросе кавычки обозначают фразу.
+        String query = mode == MatchMode.TEXT ? rawQuery : unquote(rawQuery);
+        return new FindCommand(new SearchRequest(query, symbolType, mode, isCaseSensitive, limit, page), json, timeout);
+    }
+
+    /**
+     * Выводит число совпадений: count &lt;type&gt; [&lt;query&gt; флаги find].
+     */
+    private static void handleCountCommand(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Ошибка: Укажите тип. Пример: count <type> [<query>, -f, -cs]");
+            return;
+        }
+        Query query = parseScope(parts, 1);
+        if (query == null) {
+            return;
+        }
         try {
-            findWithQuery(type, query, isFuzzy, isCaseSensitive);
+            System.out.println("Найдено совпадений: " + QueryExecutor.count(query));
         } catch (Exception e) {
             System.err.println("Ошибка поиска: " + e.getMessage());
         }
     }
 
+    /**
+     * Выводит значения поля с наибольшим числом совпадений:
+     * facet &lt;field&gt; [&lt;type&gt; [&lt;query&gt; флаги find]] [--top n].
+     */
+    private static void handleFacetCommand(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Ошибка: Укажите поле. Пример: facet <type|file|directory|vartype> [<type> [<query>]] [--top <n>]");
+            return;
+        }
+        SymbolFacets.Field field = SymbolFacets.Field.fromName(parts[1]);
+        if (field == null) {
+            System.out.println("Неизвестное поле для подсчета: " + parts[1]);
+            return;
+        }
+        int top = DEFAULT_FACET_TOP;
+        List<String> scope = new ArrayList<>();
+        scope.add(parts[0]);
+        for (int i = 2; i < parts.length; i++) {
+            if (parts[i].equalsIgnoreCase("--top") && i + 1 < parts.length) {
+                top = parsePositive(parts[++i]);
+            } else {
+                scope.add(parts[i]);
+            }
+        }
+        if (top <= 0) {
+            System.out.println("Ошибка: Значение [--top] должно быть положительным.");
+            return;
+        }
+        Query query = parseScope(scope.toArray(new String[0]), 1);
+        if (query == null) {
+            return;
+        }
+        try {
+            List<SymbolFacets.Count> counts = QueryExecutor.facet(query, field, top);
+            System.out.println("Совпадения по полю " + field.getName() + " (первые " + top + "):");
+            for (SymbolFacets.Count count : counts) {
+                System.out.println("  " + count.value() + ": " + count.count());
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка поиска: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Разбирает область подсчета начиная с parts[from]: ничего — весь индекс, тип — все объекты типа,
+     * тип с запросом и флагами find — совпадения запроса. При ошибке выводит сообщение и возвращает null.
+     */
+    private static Query parseScope(String[] parts, int from) {
+        if (parts.length <= from) {
+            return QueryExecutor.typeQuery(null);
+        }
+        if (parts.length == from + 1) {
+            SymbolType type = parseType(parts[from]);
+            if (type == null) {
+                System.out.println("Неизвестный тип для поиска: " + parts[from]);
+                return null;
+            }
+            return QueryExecutor.typeQuery(type);
+        }
+        String[] find = new String[parts.length - from + 1];
+        find[0] = "find";
+        System.arraycopy(parts, from, find, 1, parts.length - from);
+        FindCommand command = parseFindCommand(find);
+        if (command == null) {
+            return null;
+        }
+        SearchRequest request = command.request();
+        try {
+            return QueryExecutor.buildQuery(request.query(), request.type(), request.mode(), request.caseSensitive());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ошибка: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Выполняет запросы из файла: каждая строка — аргументы команды find, слово find можно опустить.
+     * Пустые строки и строки, начинающиеся с #, пропускаются.
+     */
+    private static void handleBatchCommand(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Ошибка: Укажите файл с запросами. Пример: batch <file> [--json]");
+            return;
+        }
+        boolean json = parts.length > 2 && parts[2].equalsIgnoreCase("--json");
+
+        List<SearchRequest> requests = new ArrayList<>();
+        try {
+            List<String> lines = Files.readAllLines(Paths.get(parts[1]), StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] command = splitCommand(line);
+                if (!command[0].equalsIgnoreCase("find")) {
+                    String[] withCommand = new String[command.length + 1];
+                    withCommand[0] = "find";
+                    System.arraycopy(command, 0, withCommand, 1, command.length);
+                    command = withCommand;
+                }
+                FindCommand find = parseFindCommand(command);
+                if (find == null) {
+                    System.out.println("Пропущена строка " + (i + 1) + ": " + line);
+                } else {
+                    requests.add(find.request());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Ошибка чтения файла запросов: " + e.getMessage());
+            return;
+        }
+
+        QueryBudget budget = QueryBudget.unlimited();
+        currentQuery = budget;
+        try {
+            QueryExecutor.BatchStatistics statistics = QueryExecutor.executeBatch(requests, createSink(json), budget);
+            // Итоги не смешиваются с результатами в формате JSON Lines.
+            (json ? System.err : System.out).println("Выполнено запросов: " + statistics.queries() +
+                    " (некорректных " + statistics.failed() + "), совпадений: " + statistics.totalHits() +
+                    ", неполных ответов: " + statistics.incomplete() +
+                    ", за " + statistics.elapsedNanos() / 1_000_000 + " мс, " +
+                    String.format("%.1f", statistics.queriesPerSecond()) + " запросов/с");
+        } catch (Exception e) {
+            System.err.println("Ошибка поиска: " + e.getMessage());
+        } finally {
+            currentQuery = null;
+        }
+    }
+
+    /**
+     * Показывает или задает ограничения запросов: limits [--timeout &lt;ms&gt;] [--max-expansions &lt;n&gt;].
+     */
+    private static void handleLimitsCommand(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].equalsIgnoreCase("--timeout") && i + 1 < parts.length) {
+                int millis = parsePositive(parts[++i]);
+                if (millis <= 0) {
+                    System.out.println("Ошибка: Значение [--timeout] должно быть положительным числом миллисекунд.");
+                    return;
+                }
+                QueryExecutor.setTimeout(Duration.ofMillis(millis));
+            } else if (parts[i].equalsIgnoreCase("--max-expansions") && i + 1 < parts.length) {
+                int expansions = parsePositive(parts[++i]);
+                if (expansions <= 0) {
+                    System.out.println("Ошибка: Значение [--max-expansions] должно быть положительным.");
+                    return;
+                }
+                QueryExecutor.setMaxFuzzyExpansions(expansions);
+            } else {
+                System.out.println("Ошибка: Неизвестный параметр: " + parts[i] + ". Пример: limits [--timeout <ms>] [--max-expansions <n>]");
+                return;
+            }
+        }
+        Duration timeout = QueryExecutor.getTimeout();
+        System.out.println("Время выполнения запроса: " + (timeout == null ? "без ограничения" : timeout.toMillis() + " мс") +
+                ", раскрытий неточного запроса: " + QueryExecutor.getMaxFuzzyExpansions());
+    }
+
+    /**
+     * Разбивает команду по пробелам. Часть, начинающаяся с кавычки, продолжается до парной кавычки
+     * и сохраняет кавычки: find stringconstant "connection timeout" --text.
+     */
+    static String[] splitCommand(String input) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (quote != 0) {
+                part.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (!part.isEmpty()) {
+                    parts.add(part.toString());
+                    part.setLength(0);
+                }
+            } else {
+                if (part.isEmpty() && (c == '"' || c == '\'')) {
+                    quote = c;
+                }
+                part.append(c);
+            }
+        }
+        if (!part.isEmpty()) {
+            parts.add(part.toString());
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    /**
+     * Снимает с запроса обрамляющие одинарные или двойные кавычки: find stringliteral "" ищет пустую строку.
+     */
+    private static String unquote(String query) {
+        if (query.length() >= 2 && (query.charAt(0) == '\'' || query.charAt(0) == '"')
+                && query.charAt(query.length() - 1) == query.charAt(0)) {
+            return query.substring(1, query.length() - 1);
+        }
+        return query;
+    }
+
     private static void showHelp() {
         System.out.println("Доступные команды:");
-        System.out.println("  index <path>                     Запуск индексации вашего проекта по указанному пути.");
+        System.out.println("  index <path> [--full, --watch]   Запуск индексации вашего проекта по указанному пути.\n" +
+                "                                   По умолчанию переиндексируются только измененные файлы.\n" +
+                "                                   Флаг [--full] перестраивает индекс полностью.\n" +
+                "                                   Флаг [--watch] поддерживает индекс актуальным при изменении файлов.\n" +
+                "                                   Флаги [--include <glob>, --exclude <glob>] отбирают файлы\n" +
+                "                                   (по умолчанию пропускаются target/, build/, .git/).\n" +
+                "                                   Файлы больше [--stream-threshold <bytes>] разбираются без дерева.\n" +
+                "                                   Флаг [--literals-only] индексирует только литералы и строки\n" +
+                "                                   без синтаксического разбора.\n" +
+                "                                   Флаг [--shards <n>] делит индекс на n частей, которые\n" +
+                "                                   записываются параллельно.");
         System.out.println("  find <type> <query> [-f, -cs]    Поиск объектов указанного типа (stringconstant, class, method, interface, field, localvariable,\n" +
                 "                                   [integer/float/boolean/char/string]literal) с запросом.\n" +
-                "                                   Флаг [-f] позволяет искать с неточностями. Флаг [-cs] учитывает регистр.");
+                "                                   Флаг [-f] позволяет искать с неточностями. Флаг [-cs] учитывает регистр.\n" +
+                "                                   Флаг [--regex] ищет значения, содержащие совпадение с регулярным\n" +
+                "                                   выражением, например: find stringliteral --regex 'jdbc:.*:5432'.\n" +
+                "                                   Флаг [--prefix] ищет значения по началу: find method --prefix getTest*.\n" +
+                "                                   Флаг [--camel] ищет имена по частям camelCase: find method --camel gTF.\n" +
+                "                                   Флаг [--text] ищет слова и фразы внутри строк с ранжированием:\n" +
+                "                                   find stringconstant \"connection timeout\" --text.\n" +
+                "                                   Флаги [--limit <n>, --page <k>] выводят k-ю страницу из n результатов.\n" +
+                "                                   Флаг [--json] выводит результаты в формате JSON Lines.\n" +
+                "                                   Флаг [--timeout <ms>] ограничивает время запроса; при превышении\n" +
+                "                                   или по Ctrl-C выводятся результаты, найденные до остановки.");
+        System.out.println("  count <type> [<query>]           Вывести число совпадений (флаги как у find) или объектов типа.");
+        System.out.println("  facet <field> [<type> [<query>]] Подсчитать совпадения по значениям поля: type, file, directory\n" +
+                "                                   (каталог файла) или vartype. Флаг [--top <n>] задает число значений\n" +
+                "                                   (по умолчанию 20), например: facet directory class --top 10.");
+        System.out.println("  batch <file> [--json]            Выполнить запросы из файла: по одному запросу find в строке\n" +
+                "                                   (слово find можно опустить). Запросы выполняются параллельно\n" +
+                "                                   по одному состоянию индекса, в конце выводится число запросов в секунду.");
+        System.out.println("  limits [--timeout <ms>]          Показать или задать время запроса по умолчанию (10 с) и число\n" +
+                "  [--max-expansions <n>]           терминов, в которые раскрывается неточный запрос (по умолчанию 50).");
+        System.out.println("  serve [--port <n>]               Запустить сервер поиска на 127.0.0.1 (порт по умолчанию 8765)\n" +
+                "                                   с запросами /find, /batch, /index и /status; ответы в формате JSON.\n" +
+                "                                   Без консоли: CodeSearch serve [--port <n>]. Команда\n" +
+                "                                   CodeSearch find ... передается запущенному серверу через сокет\n" +
+                "                                   .codesearch.sock, а без сервера выполняется в процессе.");
+        System.out.println("  cache                            Показать статистику кеша запросов.");
         System.out.println("  help                             Показать документацию.");
         System.out.println("  exit                             Завершить работу приложения :-(");
     }
 
+    private static void showCacheStatistics() {
+        QueryCache.Statistics statistics = QueryExecutor.getCacheStatistics();
+        System.out.println("Кеш запросов: записей " + statistics.entries() + ", результатов " + statistics.results() +
+                ", попаданий " + statistics.hits() + ", промахов " + statistics.misses() +
+                ", вытеснено " + statistics.evictions() + ", устарело " + statistics.invalidations());
+    }
+
+    private static void stopWatcher() {
+        try {
+            Path root = Indexing.stopWatcher();
+            if (root != null) {
+                System.out.println("Наблюдение за изменениями остановлено для: " + root);
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка при остановке наблюдения: " + e.getMessage());
+        }
+    }
+
     private static boolean indexProject(String path) {
+        return indexProject(path, new IndexOptions());
+    }
+
+    private static boolean indexProject(String path, IndexOptions options) {
         try {
-            indexJavaSources(path);
-            return true;
+            return Indexing.tryIndex(path, options, false);
         } catch (Exception e) {
             return false;
         }
     }
 
-    private static void findWithQuery(String type, String query, boolean isFuzzy, boolean isCaseSensitive) {
+    /**
+     * Число из аргумента или 0, если аргумент не число.
+     */
+    private static int parsePositive(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Тип по имени из команды без учета регистра (stringconstant, class, ...) или null, если имя неизвестно.
+     */
+    static SymbolType parseType(String type) {
         switch (type.toLowerCase()) {
             case "stringconstant":
-                QueryExecutor.findStringConstants(query, isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.STRING_CONSTANT;
             case "class":
-                QueryExecutor.findClass(query, isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.CLASS;
             case "method":
-                QueryExecutor.findMethod(query, isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.METHOD;
             case "interface":
-                QueryExecutor.findInterface(query, isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.INTERFACE;
             case "field":
-                QueryExecutor.findField(query, isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.FIELD;
             case "localvariable":
-                QueryExecutor.findLocalVariable(query, isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.LOCAL_VARIABLE;
             case "integerliteral":
-                QueryExecutor.findLiteral(query, "IntegerLiteral", isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.INTEGER_LITERAL;
             case "floatliteral":
-                QueryExecutor.findLiteral(query, "FloatLiteral", isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.FLOAT_LITERAL;
             case "booleanliteral":
-                QueryExecutor.findLiteral(query, "BooleanLiteral", isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.BOOLEAN_LITERAL;
             case "charliteral":
-                QueryExecutor.findLiteral(query, "CharLiteral", isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.CHAR_LITERAL;
             case "stringliteral":
-                QueryExecutor.findLiteral(query, "StringLiteral", isFuzzy, isCaseSensitive);
-                break;
+                return SymbolType.STRING_LITERAL;
             default:
-                System.out.println("Неизвестный тип для поиска: " + type);
-                break;
+                return null;
         }
     }
+
+    private static ResultSink createSink(boolean json) {
+        return json
+                ? new JsonLinesResultSink(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : new ConsoleResultSink();
+    }
 }
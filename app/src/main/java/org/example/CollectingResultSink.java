@@ -0,0 +1,53 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Собирает результаты в памяти. Используется в тестах и при встраивании поиска.
+ */
+public class CollectingResultSink implements ResultSink {
+
+    private final List<SymbolResult> results = new ArrayList<>();
+    private int totalHits;
+    private boolean complete = true;
+    private boolean cancelled;
+
+    @Override
+    public synchronized void begin(SearchRequest request, int totalHits) {
+        this.totalHits = totalHits;
+        results.clear();
+        complete = true;
+        cancelled = false;
+    }
+
+    @Override
+    public synchronized void accept(SymbolResult result) {
+        results.add(result);
+    }
+
+    @Override
+    public synchronized void incomplete(boolean cancelled) {
+        complete = false;
+        this.cancelled = cancelled;
+    }
+
+    public synchronized List<SymbolResult> getResults() {
+        return List.copyOf(results);
+    }
+
+    public synchronized int getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * Получены ли все результаты: false, если запрос остановлен по времени или отменен.
+     */
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import java.io.PrintWriter;
+
+/**
+ * Выводит результаты в текстовом виде, по строке на результат.
+ * Методы синхронизированы, чтобы строки параллельных запросов не перемешивались.
+ */
+public class ConsoleResultSink implements ResultSink {
+
+    private final PrintWriter out;
+
+    public ConsoleResultSink() {
+        this(new PrintWriter(System.out));
+    }
+
+    public ConsoleResultSink(PrintWriter out) {
+        this.out = out;
+    }
+
+    @Override
+    public synchronized void begin(SearchRequest request, int totalHits) {
+        out.println("Запрос на " + request.type().getName() + describe(request.mode()) + ": "
+                + request.query() + " (учет регистра: " + request.caseSensitive() + ")");
+        out.println("Найдено совпадений " + (request.fuzzy() ? "с" : "c") + " " + request.query() + ": " + totalHits);
+        if (request.isPaged()) {
+            long from = request.offset();
+            out.println("Страница " + request.page() + ", совпадения " + Math.min(from + 1, totalHits) + "-"
+                    + Math.min(from + request.limit(), totalHits) + " из " + totalHits);
+        }
+    }
+
+    private static String describe(MatchMode mode) {
+        return switch (mode) {
+            case EXACT -> "";
+            case FUZZY -> " (с неточностями)";
+            case REGEX -> " (регулярное выражение)";
+            case PREFIX -> " (по префиксу)";
+            case CAMEL -> " (по частям имени)";
+            case TEXT -> " (полнотекстовый)";
+        };
+    }
+
+    @Override
+    public synchronized void accept(SymbolResult result) {
+        out.print(result.type().getName());
+        out.print(": ");
+        out.print(result.content());
+        if (result.type() == SymbolType.FIELD || result.type() == SymbolType.LOCAL_VARIABLE) {
+            out.print(", Тип: ");
+            out.print(result.varType());
+        }
+        out.print(", Файл: ");
+        out.print(result.file());
+        out.print(", Строка: ");
+        out.println(result.line());
+    }
+
+    @Override
+    public synchronized void incomplete(boolean cancelled) {
+        out.println(cancelled
+                ? "Запрос отменен, выведены результаты, найденные до отмены."
+                : "Превышено время выполнения запроса, выведены результаты, найденные за отведенное время.");
+    }
+
+    @Override
+    public synchronized void end() {
+        out.flush();
+    }
+}
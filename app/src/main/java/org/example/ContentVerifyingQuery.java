@@ -0,0 +1,119 @@
+package org.example;
+
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+
+/**
+ * Отбирает кандидатов вложенным запросом и оставляет те, хранимое значение content которых
+ * удовлетворяет условию {@link #matches(String)}. Проверка выполняется во второй фазе
+ * TwoPhaseIterator, то есть только для документов, прошедших остальные условия.
+ */
+abstract class ContentVerifyingQuery extends Query {
+
+    /** Оценка стоимости проверки одного документа: чтение хранимых полей и сопоставление. */
+    private static final float MATCH_COST = 1000f;
+
+    protected final Query candidates;
+
+    protected ContentVerifyingQuery(Query candidates) {
+        this.candidates = candidates;
+    }
+
+    /**
+     * Проверяет значение документа-кандидата.
+     */
+    protected abstract boolean matches(String content);
+
+    /**
+     * Тот же запрос с другими кандидатами.
+     */
+    protected abstract ContentVerifyingQuery withCandidates(Query candidates);
+
+    @Override
+    public Query rewrite(IndexSearcher searcher) throws IOException {
+        Query rewritten = candidates.rewrite(searcher);
+        return rewritten == candidates ? this : withCandidates(rewritten);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        Weight candidateWeight = candidates.createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, 1f);
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+                ScorerSupplier candidateSupplier = candidateWeight.scorerSupplier(context);
+                if (candidateSupplier == null) {
+                    return null;
+                }
+                float score = score();
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(long leadCost) throws IOException {
+                        DocIdSetIterator approximation = candidateSupplier.get(leadCost).iterator();
+                        StoredFields storedFields = context.reader().storedFields();
+                        return new ConstantScoreScorer(score, scoreMode, new TwoPhaseIterator(approximation) {
+                            @Override
+                            public boolean matches() throws IOException {
+                                DocumentStoredFieldVisitor visitor = new DocumentStoredFieldVisitor(IndexSchema.CONTENT);
+                                storedFields.document(approximation.docID(), visitor);
+                                String content = visitor.getDocument().get(IndexSchema.CONTENT);
+                                return content != null && ContentVerifyingQuery.this.matches(content);
+                            }
+
+                            @Override
+                            public float matchCost() {
+                                return MATCH_COST;
+                            }
+                        });
+                    }
+
+                    @Override
+                    public long cost() {
+                        return candidateSupplier.cost();
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext context) {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        candidates.visit(visitor.getSubVisitor(BooleanClause.Occur.FILTER, this));
+    }
+
+    /**
+     * Содержит ли запрос проверку хранимого значения: число совпадений такого запроса
+     * нельзя узнать, не проверив каждого кандидата.
+     */
+    static boolean isPresentIn(Query query) {
+        boolean[] found = new boolean[1];
+        query.visit(new QueryVisitor() {
+            @Override
+            public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+                found[0] |= parent instanceof ContentVerifyingQuery;
+                return this;
+            }
+        });
+        return found[0];
+    }
+}
@@ -0,0 +1,73 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Клиент сервера поиска через Unix domain socket: передает запрос по протоколу
+ * {@link SocketProtocol} и по мере получения передает результаты получателю.
+ * Клиент не загружает Lucene и не открывает индекс, поэтому запрос из скрипта
+ * стоит только запуска JVM и обмена через сокет.
+ */
+final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Выполняет запрос на сервере, слушающем socket, и передает ответ получателю.
+     *
+     * @return false, если сервер не запущен: тогда запрос выполняется в процессе
+     * @throws IllegalArgumentException с сообщением сервера, если запрос некорректен
+     * @throws IOException              с сообщением сервера, если выполнить запрос не удалось,
+     *                                  или если соединение прервано во время ответа
+     */
+    static boolean find(Path socket, SocketProtocol.Request request, ResultSink sink) throws IOException {
+        if (!Files.exists(socket)) {
+            return false;
+        }
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            // Файл остался от завершенного сервера.
+            return false;
+        }
+        try (channel) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            SocketProtocol.writeRequest(out, request);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+            while (true) {
+                byte kind;
+                try {
+                    kind = in.readByte();
+                } catch (EOFException e) {
+                    throw new IOException("Сервер поиска закрыл соединение, не завершив ответ", e);
+                }
+                switch (kind) {
+                    case SocketProtocol.BEGIN -> sink.begin(request.search(), in.readInt());
+                    case SocketProtocol.RESULT -> sink.accept(SocketProtocol.readResult(in));
+                    case SocketProtocol.INCOMPLETE -> sink.incomplete(in.readBoolean());
+                    case SocketProtocol.END -> {
+                        sink.end();
+                        return true;
+                    }
+                    case SocketProtocol.ERROR -> throw new IllegalArgumentException(SocketProtocol.readString(in));
+                    case SocketProtocol.FAILURE -> throw new IOException(SocketProtocol.readString(in));
+                    default -> throw new IOException("Неизвестный кадр ответа сервера: " + kind);
+                }
+            }
+        }
+    }
+}
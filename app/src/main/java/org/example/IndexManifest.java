@@ -0,0 +1,172 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Манифест проиндексированных файлов.
+ * Для каждого файла хранит путь, размер, время последнего изменения и хеш содержимого,
+ * что позволяет при повторной индексации заново разбирать только добавленные и измененные файлы.
+ */
+public class IndexManifest {
+
+    private static final String FILE_NAME = "manifest";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Загружает манифест из каталога индекса.
+     * Возвращает null, если манифест отсутствует и инкрементальная индексация невозможна.
+     */
+    public static IndexManifest load(Path indexDirectory) throws IOException {
+        Path manifestPath = indexDirectory.resolve(FILE_NAME);
+        if (!Files.exists(manifestPath)) {
+            return null;
+        }
+
+        IndexManifest manifest = new IndexManifest();
+        try (BufferedReader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length != 4) {
+                    throw new IOException("Поврежденная запись манифеста: " + line);
+                }
+                manifest.put(parts[3], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Сохраняет манифест в каталог индекса.
+     * Запись идет во временный файл, который затем атомарно заменяет прежний манифест.
+     */
+    public void save(Path indexDirectory) throws IOException {
+        Path manifestPath = indexDirectory.resolve(FILE_NAME);
+        Path temporaryPath = indexDirectory.resolve(FILE_NAME + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                writer.write(value.getSize() + "\t" + value.getLastModified() + "\t" + value.getHash() + "\t" + entry.getKey());
+                writer.newLine();
+            }
+        }
+        Files.move(temporaryPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Entry get(String file) {
+        return entries.get(file);
+    }
+
+    public void put(String file, Entry entry) {
+        entries.put(file, entry);
+    }
+
+    public void remove(String file) {
+        entries.remove(file);
+    }
+
+    public Set<String> getFiles() {
+        return entries.keySet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static String hash(byte[] content) {
+        MessageDigest digest = newDigest();
+        return HexFormat.of().formatHex(digest.digest(content));
+    }
+
+    /**
+     * Хеширует файл по частям, не загружая его в память целиком.
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Поток, хеширующий читаемое содержимое: хеш большого файла считается за то же чтение,
+     * что и разбор. Хеш возвращает {@link #hash(DigestInputStream)}.
+     */
+    static DigestInputStream hashingStream(InputStream input) {
+        return new DigestInputStream(input, newDigest());
+    }
+
+    /**
+     * Дочитывает поток до конца и возвращает хеш всего содержимого.
+     */
+    static String hash(DigestInputStream input) throws IOException {
+        input.transferTo(OutputStream.nullOutputStream());
+        return HexFormat.of().formatHex(input.getMessageDigest().digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    public static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        public Entry(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Файл считается неизменным без чтения содержимого, если совпадают размер и время изменения.
+         */
+        public boolean matches(long size, long lastModified) {
+            return this.size == size && this.lastModified == lastModified;
+        }
+
+        @Override
+        public String toString() {
+            return "Size: " + size + ", Modified: " + lastModified + ", Hash: " + hash;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Параметры запуска индексации.
+ * Сеттеры возвращают this, чтобы параметры можно было задавать цепочкой.
+ */
+public class IndexOptions {
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private boolean fullRebuild;
+    private List<String> includeGlobs = SourceDiscovery.DEFAULT_INCLUDES;
+    private List<String> excludeGlobs = SourceDiscovery.DEFAULT_EXCLUDES;
+    private int queueCapacity = 1024;
+    private long streamingThreshold = 4L * 1024 * 1024;
+    private boolean literalsOnly;
+    private int shardCount = 1;
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * @throws IllegalArgumentException если threadCount меньше 1
+     */
+    public IndexOptions setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Число потоков индексации должно быть положительным: " + threadCount);
+        }
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    public boolean isFullRebuild() {
+        return fullRebuild;
+    }
+
+    public IndexOptions setFullRebuild(boolean fullRebuild) {
+        this.fullRebuild = fullRebuild;
+        return this;
+    }
+
+    public List<String> getIncludeGlobs() {
+        return includeGlobs;
+    }
+
+    public IndexOptions setIncludeGlobs(List<String> includeGlobs) {
+        this.includeGlobs = List.copyOf(includeGlobs);
+        return this;
+    }
+
+    public List<String> getExcludeGlobs() {
+        return excludeGlobs;
+    }
+
+    public IndexOptions setExcludeGlobs(List<String> excludeGlobs) {
+        this.excludeGlobs = List.copyOf(excludeGlobs);
+        return this;
+    }
+
+    /**
+     * Размер очереди между обходом каталогов и потоками разбора.
+     * Ограничивает объем памяти независимо от размера дерева исходников.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public IndexOptions setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Размер файла в байтах, выше которого файл разбирается в потоковом режиме
+     * без построения дерева разбора (большие сгенерированные исходники).
+     */
+    public long getStreamingThreshold() {
+        return streamingThreshold;
+    }
+
+    public IndexOptions setStreamingThreshold(long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+        return this;
+    }
+
+    /**
+     * Режим только литералов: файлы проходят лишь лексический анализ, без парсера,
+     * и в индекс попадают только литералы и строковые константы.
+     */
+    public boolean isLiteralsOnly() {
+        return literalsOnly;
+    }
+
+    public IndexOptions setLiteralsOnly(boolean literalsOnly) {
+        this.literalsOnly = literalsOnly;
+        return this;
+    }
+
+    /**
+     * Число шардов индекса. Каждый шард пишется своим IndexWriter,
+     * что позволяет полной перестройке загрузить все ядра.
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @throws IllegalArgumentException если shardCount меньше 1
+     */
+    public IndexOptions setShardCount(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным: " + shardCount);
+        }
+        this.shardCount = shardCount;
+        return this;
+    }
+}
@@ -0,0 +1,293 @@
+package org.example;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+
+import org.apache.lucene.util.BytesRef;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Схема индекса.
+ * <ul>
+ *     <li>content — имя или значение объекта, только хранится;</li>
+ *     <li>content.&lt;Тип&gt; — индексируемое значение, отдельное поле на каждый {@link SymbolType}:
+ *     неточный, префиксный и шаблонный поиск обходит словарь терминов только запрошенного типа,
+ *     а не всех строк и литералов индекса;</li>
+ *     <li>content_lowercase.&lt;Тип&gt; — то же в нижнем регистре, приводится анализатором;</li>
+ *     <li>trigrams.&lt;Тип&gt; — триграммы значения в нижнем регистре, только для строковых констант
+ *     и литералов; по ним отбираются кандидаты для поиска по регулярному выражению;</li>
+ *     <li>text.&lt;Тип&gt; — значение, разбитое StandardAnalyzer на слова с позициями и нормами,
+ *     для тех же типов: поиск слов, фраз и слов на расстоянии с ранжированием BM25;</li>
+ *     <li>prefixes.&lt;Тип&gt; — все префиксы имени в нижнем регистре (до {@link #MAX_PREFIX} символов),
+ *     только для имен классов, интерфейсов, методов, полей и переменных: поиск по префиксу
+ *     выполняется одним термином, без перебора словаря;</li>
+ *     <li>humps.&lt;Тип&gt; — последовательности первых букв частей camelCase имени
+ *     (см. {@link CamelHumps}), для тех же типов;</li>
+ *     <li>line — IntPoint и NumericDocValues вместо строки;</li>
+ *     <li>type — термин для фильтрации и порядковый номер {@link SymbolType} в doc values;</li>
+ *     <li>varType — тип поля или переменной: хранится и, для подсчета по типам, пишется в SortedDocValues;</li>
+ *     <li>file — путь не хранится в каждом документе: SortedDocValues держат каждый путь
+ *     один раз на сегмент, а документ ссылается на него порядковым номером.
+ *     Термин file нужен для удаления документов файла.</li>
+ * </ul>
+ * Документы каждого сегмента упорядочены по {@link #INDEX_SORT}: запрос, результаты которого
+ * собираются в этом порядке, завершается, как только набрана страница.
+ */
+public final class IndexSchema {
+
+    /** Версия схемы записывается в данные коммита; при несовпадении индекс перестраивается. */
+    static final String VERSION = "8";
+    static final String VERSION_KEY = "schema";
+
+    public static final String CONTENT = "content";
+    public static final String CONTENT_LOWERCASE = "content_lowercase";
+    public static final String TRIGRAMS = "trigrams";
+    public static final String TEXT = "text";
+    public static final String PREFIXES = "prefixes";
+    public static final String HUMPS = "humps";
+    public static final String FILE = "file";
+    public static final String LINE = "line";
+    public static final String TYPE = "type";
+    public static final String VAR_TYPE = "varType";
+
+    private static final String[] CONTENT_FIELDS = new String[SymbolType.values().length];
+    private static final String[] CONTENT_LOWERCASE_FIELDS = new String[SymbolType.values().length];
+    private static final String[] TRIGRAM_FIELDS = new String[SymbolType.values().length];
+    private static final String[] TEXT_FIELDS = new String[SymbolType.values().length];
+    private static final String[] PREFIX_FIELDS = new String[SymbolType.values().length];
+    private static final String[] HUMP_FIELDS = new String[SymbolType.values().length];
+
+    /** Наибольшая длина индексируемого префикса имени в кодовых точках. */
+    static final int MAX_PREFIX = 32;
+
+    static {
+        for (SymbolType type : SymbolType.values()) {
+            CONTENT_FIELDS[type.ordinal()] = CONTENT + "." + type.getName();
+            CONTENT_LOWERCASE_FIELDS[type.ordinal()] = CONTENT_LOWERCASE + "." + type.getName();
+            TRIGRAM_FIELDS[type.ordinal()] = TRIGRAMS + "." + type.getName();
+            TEXT_FIELDS[type.ordinal()] = TEXT + "." + type.getName();
+            PREFIX_FIELDS[type.ordinal()] = PREFIXES + "." + type.getName();
+            HUMP_FIELDS[type.ordinal()] = HUMPS + "." + type.getName();
+        }
+    }
+
+    /** Порядок документов в индексе: тип, файл, строка. */
+    public static final Sort INDEX_SORT = new Sort(
+            new SortField(TYPE, SortField.Type.LONG),
+            new SortField(FILE, SortField.Type.STRING),
+            new SortField(LINE, SortField.Type.LONG));
+
+    private static final FieldType NORMALIZED_TYPE = new FieldType();
+
+    static {
+        NORMALIZED_TYPE.setIndexOptions(org.apache.lucene.index.IndexOptions.DOCS);
+        NORMALIZED_TYPE.setTokenized(true);
+        NORMALIZED_TYPE.setOmitNorms(true);
+        NORMALIZED_TYPE.freeze();
+    }
+
+    private static final Analyzer NORMALIZER = createAnalyzer();
+
+    private IndexSchema() {
+    }
+
+    /**
+     * Анализатор для IndexWriter: content_lowercase.&lt;Тип&gt; — весь текст одним токеном в нижнем регистре,
+     * остальные поля не разбиваются.
+     */
+    public static Analyzer createAnalyzer() {
+        Analyzer lowercase = new LowercaseKeywordAnalyzer();
+        Analyzer trigrams = new TrigramAnalyzer();
+        Analyzer text = textAnalyzer();
+        Analyzer prefixes = new PrefixAnalyzer();
+        Analyzer humps = new WhitespaceAnalyzer();
+        Map<String, Analyzer> analyzers = new HashMap<>();
+        for (String field : CONTENT_LOWERCASE_FIELDS) {
+            analyzers.put(field, lowercase);
+        }
+        for (String field : TRIGRAM_FIELDS) {
+            analyzers.put(field, trigrams);
+        }
+        for (String field : TEXT_FIELDS) {
+            analyzers.put(field, text);
+        }
+        for (String field : PREFIX_FIELDS) {
+            analyzers.put(field, prefixes);
+        }
+        for (String field : HUMP_FIELDS) {
+            analyzers.put(field, humps);
+        }
+        return new PerFieldAnalyzerWrapper(new KeywordAnalyzer(), analyzers);
+    }
+
+    /**
+     * Анализатор полей text.&lt;Тип&gt;; им же разбираются полнотекстовые запросы.
+     */
+    public static Analyzer textAnalyzer() {
+        return new StandardAnalyzer();
+    }
+
+    /**
+     * Приводит текст запроса к виду, в котором индексируется content_lowercase.&lt;Тип&gt;.
+     */
+    public static String normalize(String text) {
+        return NORMALIZER.normalize(CONTENT_LOWERCASE_FIELDS[0], text).utf8ToString();
+    }
+
+    /**
+     * Индексируемое поле значений объектов типа type с учетом регистра.
+     */
+    public static String contentField(SymbolType type) {
+        return CONTENT_FIELDS[type.ordinal()];
+    }
+
+    /**
+     * Индексируемое поле значений объектов типа type в нижнем регистре.
+     */
+    public static String contentLowercaseField(SymbolType type) {
+        return CONTENT_LOWERCASE_FIELDS[type.ordinal()];
+    }
+
+    /**
+     * Поле триграмм значений объектов типа type.
+     */
+    public static String trigramField(SymbolType type) {
+        return TRIGRAM_FIELDS[type.ordinal()];
+    }
+
+    /**
+     * Индексируются ли триграммы значений этого типа.
+     */
+    public static boolean hasTrigrams(SymbolType type) {
+        return type == SymbolType.STRING_CONSTANT || type == SymbolType.STRING_LITERAL;
+    }
+
+    /**
+     * Поле слов значений объектов типа type.
+     */
+    public static String textField(SymbolType type) {
+        return TEXT_FIELDS[type.ordinal()];
+    }
+
+    /**
+     * Индексируются ли слова значений этого типа.
+     */
+    public static boolean hasText(SymbolType type) {
+        return type == SymbolType.STRING_CONSTANT || type == SymbolType.STRING_LITERAL;
+    }
+
+    /**
+     * Поле префиксов имен объектов типа type.
+     */
+    public static String prefixField(SymbolType type) {
+        return PREFIX_FIELDS[type.ordinal()];
+    }
+
+    /**
+     * Поле первых букв частей имен объектов типа type.
+     */
+    public static String humpField(SymbolType type) {
+        return HUMP_FIELDS[type.ordinal()];
+    }
+
+    /**
+     * Индексируются ли префиксы и части имен этого типа.
+     */
+    public static boolean hasNameParts(SymbolType type) {
+        return switch (type) {
+            case CLASS, INTERFACE, METHOD, FIELD, LOCAL_VARIABLE -> true;
+            default -> false;
+        };
+    }
+
+    public static Document symbolDocument(String content, String file, int line, SymbolType type) {
+        Document doc = new Document();
+        doc.add(new StoredField(CONTENT, content));
+        doc.add(new StringField(contentField(type), content, Field.Store.NO));
+        doc.add(new Field(contentLowercaseField(type), content, NORMALIZED_TYPE));
+        if (hasTrigrams(type)) {
+            doc.add(new Field(trigramField(type), content, NORMALIZED_TYPE));
+        }
+        if (hasText(type)) {
+            doc.add(new TextField(textField(type), content, Field.Store.NO));
+        }
+        if (hasNameParts(type)) {
+            doc.add(new Field(prefixField(type), content, NORMALIZED_TYPE));
+            doc.add(new Field(humpField(type), CamelHumps.initialsTokens(content), NORMALIZED_TYPE));
+        }
+        doc.add(new StringField(FILE, file, Field.Store.NO));
+        doc.add(new SortedDocValuesField(FILE, new BytesRef(file)));
+        doc.add(new IntPoint(LINE, line));
+        doc.add(new NumericDocValuesField(LINE, line));
+        addType(doc, type);
+        return doc;
+    }
+
+    public static void addVarType(Document doc, String varType) {
+        doc.add(new StoredField(VAR_TYPE, varType));
+        doc.add(new SortedDocValuesField(VAR_TYPE, new BytesRef(varType)));
+    }
+
+    private static void addType(Document doc, SymbolType type) {
+        doc.add(new StringField(TYPE, type.getName(), Field.Store.NO));
+        doc.add(new NumericDocValuesField(TYPE, type.ordinal()));
+    }
+
+    /**
+     * Все триграммы текста (по кодовым точкам) в нижнем регистре.
+     */
+    private static class TrigramAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new NGramTokenizer(3, 3);
+            return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+        }
+    }
+
+    /**
+     * Префиксы текста длиной от 1 до {@link #MAX_PREFIX} в нижнем регистре.
+     */
+    private static class PrefixAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new KeywordTokenizer();
+            return new TokenStreamComponents(tokenizer,
+                    new EdgeNGramTokenFilter(new LowerCaseFilter(tokenizer), 1, MAX_PREFIX, false));
+        }
+    }
+
+    private static class LowercaseKeywordAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new KeywordTokenizer();
+            return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new LowerCaseFilter(in);
+        }
+    }
+}
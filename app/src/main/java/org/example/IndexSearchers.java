@@ -0,0 +1,193 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.ExitableDirectoryReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.QueryTimeout;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий для всего приложения доступ к открытому индексу.
+ * Индекс открывается при первом запросе и остается открытым между запросами,
+ * сохраняя кеши сегментов. Каждый запрос берет поисковик через acquire и обязательно
+ * возвращает его через release. После фиксации индексатором поисковик обновляется,
+ * а перед полной перестройкой индекса закрывается и затем открывается заново.
+ * Изменения, зафиксированные другим процессом, например однократной командой index
+ * при запущенном сервере, обнаруживает {@link #checkExternalChanges()}.
+ * <p>
+ * Все запросы используют один ограниченный пул потоков: IndexSearcher ищет в нем
+ * по группам сегментов параллельно, а QueryExecutor загружает найденные документы.
+ */
+public final class IndexSearchers {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /** Проверка индекса стоит чтения списка файлов каждого шарда, поэтому выполняется не на каждый запрос. */
+    static final long EXTERNAL_CHECK_INTERVAL_MILLIS = 500;
+
+    private static final ExecutorService executor = createExecutor();
+
+    private static ShardedSearcherManager manager;
+
+    private static volatile long generation;
+
+    private static long lastCheckNanos;
+
+    private IndexSearchers() {
+    }
+
+    /**
+     * Общий пул поиска. Очередь ограничена; при ее заполнении задача выполняется
+     * в вызывающем потоке, поэтому нагрузка не приводит ни к отказам, ни к росту числа потоков.
+     */
+    public static ExecutorService executor() {
+        return executor;
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Поколение индекса: увеличивается при каждом обновлении и закрытии,
+     * то есть после каждой фиксации изменений индексатором.
+     */
+    public static long generation() {
+        return generation;
+    }
+
+    public static synchronized IndexSearcher acquire() throws IOException {
+        checkExternalChanges();
+        if (manager == null) {
+            manager = new ShardedSearcherManager(JavaSourceIndexer.getIndexDirectory(), executor);
+            manager.addListener(new ReferenceManager.RefreshListener() {
+                @Override
+                public void beforeRefresh() {
+                }
+
+                @Override
+                public void afterRefresh(boolean didRefresh) {
+                    if (didRefresh) {
+                        generation++;
+                    }
+                }
+            });
+            lastCheckNanos = System.nanoTime();
+        }
+        return manager.acquire();
+    }
+
+    /**
+     * Открывает изменения, зафиксированные в обход {@link #refresh} другим процессом, если с прошлой
+     * проверки прошло больше {@link #EXTERNAL_CHECK_INTERVAL_MILLIS} мс. Новое состояние индекса
+     * увеличивает поколение и тем сбрасывает кеш запросов, поэтому метод вызывается и перед
+     * ответом из кеша. Если индекс перестроен и открыть изменения не удалось, он открывается заново.
+     */
+    public static synchronized void checkExternalChanges() {
+        long now = System.nanoTime();
+        if (manager == null || now - lastCheckNanos < TimeUnit.MILLISECONDS.toNanos(EXTERNAL_CHECK_INTERVAL_MILLIS)) {
+            return;
+        }
+        lastCheckNanos = now;
+        try {
+            manager.maybeRefresh();
+        } catch (IOException e) {
+            logger.info("Индекс изменен другим процессом и будет открыт заново: {}", e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Поисковик по тому же читателю, останавливающий сбор совпадений по сигналу timeout:
+     * результаты остаются частичными (IndexSearcher#timedOut). Читатель общий с исходным
+     * поисковиком, поэтому кеш запросов Lucene продолжает работать, а создание поисковика
+     * не оборачивает сегменты. Ссылку на индекс держит исходный поисковик.
+     */
+    static IndexSearcher withTimeout(IndexSearcher searcher, QueryTimeout timeout) {
+        IndexSearcher limited = new IndexSearcher(searcher.getIndexReader(), executor);
+        limited.setTimeout(timeout);
+        return limited;
+    }
+
+    /**
+     * Поисковик, который кроме сбора совпадений останавливает обход терминов и doc values,
+     * бросая ExitingReaderException, — для запросов, раскрывающих термины (неточный и префиксный
+     * поиск), где раскрытие может занять больше времени, чем сбор. Сегменты оборачиваются
+     * на каждый запрос, и кеш запросов Lucene для такого поисковика не используется.
+     * Номера документов совпадают с исходным поисковиком.
+     */
+    static IndexSearcher withExitableReader(IndexSearcher searcher, QueryTimeout timeout) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReader[] readers = new LeafReader[leaves.size()];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new ExitableDirectoryReader.ExitableFilterAtomicReader(leaves.get(i).reader(), timeout);
+        }
+        IndexSearcher limited = new IndexSearcher(new MultiReader(readers, false), executor);
+        limited.setTimeout(timeout);
+        return limited;
+    }
+
+    /**
+     * Возвращает поисковик, полученный через acquire.
+     * Поисковик может пережить свой менеджер, поэтому ссылка снимается напрямую с его читателя.
+     */
+    public static void release(IndexSearcher searcher) throws IOException {
+        searcher.getIndexReader().decRef();
+    }
+
+    /**
+     * Делает видимыми изменения, зафиксированные в индексе. Если индекс еще не открыт, ничего не делает.
+     * При ошибке индекс закрывается и будет открыт заново при следующем запросе.
+     */
+    public static synchronized void refresh() {
+        generation++;
+        if (manager != null) {
+            try {
+                manager.maybeRefreshBlocking();
+            } catch (IOException e) {
+                logger.warn("Не удалось обновить индекс для поиска, он будет открыт заново.", e);
+                close();
+            }
+        }
+    }
+
+    /**
+     * Закрывает открытый индекс. Следующий acquire откроет его заново:
+     * так обрабатывается полная перестройка и смена числа шардов.
+     * Выданные ранее поисковики продолжают работать до release.
+     */
+    public static synchronized void close() {
+        generation++;
+        if (manager != null) {
+            try {
+                manager.close();
+            } catch (IOException e) {
+                logger.warn("Ошибка при закрытии индекса для поиска.", e);
+            }
+            manager = null;
+        }
+    }
+}
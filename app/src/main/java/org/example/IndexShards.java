@@ -0,0 +1,176 @@
+package org.example;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Индекс, разделенный на несколько независимых частей (шардов).
+ * Каждый шард — отдельный каталог shard-N со своим IndexWriter, поэтому запись
+ * не упирается в один IndexWriter. Файл всегда попадает в один и тот же шард
+ * по хешу пути, что сохраняет инкрементальные обновления и удаления.
+ * Индекс из одного шарда хранится прямо в каталоге индекса, как и раньше.
+ */
+public class IndexShards implements Closeable {
+
+    private static final String SHARD_PREFIX = "shard-";
+
+    private final List<MMapDirectory> directories = new ArrayList<>();
+    private final List<IndexWriter> writers = new ArrayList<>();
+
+    private IndexShards() {
+    }
+
+    /**
+     * Открывает IndexWriter для каждого шарда.
+     */
+    public static IndexShards open(Path root, int shardCount, Analyzer analyzer,
+                                   IndexWriterConfig.OpenMode openMode) throws IOException {
+        IndexShards shards = new IndexShards();
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                MMapDirectory directory = new MMapDirectory(shardPath(root, shard, shardCount));
+                shards.directories.add(directory);
+                shards.writers.add(new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                        .setOpenMode(openMode)
+                        .setIndexSort(IndexSchema.INDEX_SORT)));
+            }
+        } catch (IOException e) {
+            IOUtils.closeWhileHandlingException(shards);
+            throw e;
+        }
+        return shards;
+    }
+
+    /**
+     * Writer шарда, которому принадлежит файл.
+     */
+    public IndexWriter writerFor(String file) {
+        return writers.get(shardOf(file, writers.size()));
+    }
+
+    public int size() {
+        return writers.size();
+    }
+
+    /**
+     * Фиксирует все шарды параллельно с одинаковыми данными коммита.
+     * Данные null оставляют прежние данные коммита без изменений.
+     */
+    public void commit(Map<String, String> commitData) throws IOException {
+        if (writers.size() == 1) {
+            commit(writers.get(0), commitData);
+            return;
+        }
+
+        List<Callable<Void>> commits = new ArrayList<>();
+        for (IndexWriter writer : writers) {
+            commits.add(() -> {
+                commit(writer, commitData);
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(commits.size());
+        try {
+            for (Future<Void> result : executor.invokeAll(commits)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Фиксация шардов прервана", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void commit(IndexWriter writer, Map<String, String> commitData) throws IOException {
+        if (commitData != null) {
+            writer.setLiveCommitData(commitData.entrySet());
+        }
+        writer.commit();
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<Closeable> resources = new ArrayList<>(writers);
+        resources.addAll(directories);
+        IOUtils.close(resources);
+    }
+
+    static int shardOf(String file, int shardCount) {
+        return Math.floorMod(file.hashCode(), shardCount);
+    }
+
+    static Path shardPath(Path root, int shard, int shardCount) {
+        return shardCount == 1 ? root : root.resolve(SHARD_PREFIX + shard);
+    }
+
+    /**
+     * Число шардов существующего индекса по его каталогам.
+     */
+    public static int existingShardCount(Path root) {
+        int count = 0;
+        while (Files.isDirectory(root.resolve(SHARD_PREFIX + count))) {
+            count++;
+        }
+        return Math.max(1, count);
+    }
+
+    /**
+     * Открывает индекс для поиска. Шарды объединяются через MultiReader,
+     * так что вызывающий код не зависит от числа шардов.
+     * Закрытие читателя закрывает и каталоги.
+     */
+    public static IndexReader openReader(Path root) throws IOException {
+        int shardCount = existingShardCount(root);
+        List<MMapDirectory> directories = new ArrayList<>();
+        List<DirectoryReader> readers = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                MMapDirectory directory = new MMapDirectory(shardPath(root, shard, shardCount));
+                directories.add(directory);
+                readers.add(DirectoryReader.open(directory));
+            }
+        } catch (IOException e) {
+            IOUtils.closeWhileHandlingException(readers);
+            IOUtils.closeWhileHandlingException(directories);
+            throw e;
+        }
+
+        if (shardCount == 1) {
+            DirectoryReader reader = readers.get(0);
+            reader.getReaderCacheHelper().addClosedListener(key -> IOUtils.close(directories));
+            return reader;
+        }
+        return new MultiReader(readers.toArray(new IndexReader[0]), true) {
+            @Override
+            protected synchronized void doClose() throws IOException {
+                try {
+                    super.doClose();
+                } finally {
+                    IOUtils.close(directories);
+                }
+            }
+        };
+    }
+}
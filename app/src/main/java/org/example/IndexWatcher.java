@@ -0,0 +1,251 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexWriterConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Фоновый процесс, поддерживающий индекс в актуальном состоянии.
+ * Следит за деревом исходников через WatchService, объединяет серии событий
+ * (checkout, сохранение всех файлов в IDE) и переиндексирует только затронутые Java-файлы
+ * небольшими пакетами с фиксацией после каждого пакета.
+ */
+public class IndexWatcher implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Пауза без событий, после которой накопленные изменения применяются к индексу. */
+    private static final long QUIET_PERIOD_MILLIS = 200;
+    /** Предельная задержка применения изменений при непрерывном потоке событий. */
+    private static final long MAX_DELAY_MILLIS = 1000;
+    /** Количество файлов, после обработки которых индекс фиксируется. */
+    private static final int BATCH_SIZE = 256;
+
+    private final Path root;
+    private final Path indexDirectory;
+    private final SourceDiscovery discovery;
+    private final IndexOptions options;
+    private final WatchService watchService;
+    private final Analyzer analyzer;
+    private final IndexShards shards;
+    private final IndexManifest manifest;
+    private final ExecutorService executor;
+    private final Thread thread;
+
+    private final Set<Path> pendingFiles = new LinkedHashSet<>();
+    private boolean rescanPending;
+    private volatile boolean running = true;
+
+    private IndexWatcher(Path root, SourceDiscovery discovery, IndexOptions options) throws IOException {
+        this.root = root;
+        this.indexDirectory = JavaSourceIndexer.getIndexDirectory();
+        this.discovery = discovery;
+        this.options = options;
+        this.watchService = root.getFileSystem().newWatchService();
+        this.analyzer = IndexSchema.createAnalyzer();
+        this.shards = IndexShards.open(indexDirectory, options.getShardCount(), analyzer,
+                IndexWriterConfig.OpenMode.APPEND);
+        IndexManifest loaded = IndexManifest.load(indexDirectory);
+        this.manifest = loaded != null ? loaded : new IndexManifest();
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.thread = new Thread(this::watchLoop, "index-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Приводит индекс в соответствие с деревом (инкрементальная индексация)
+     * и запускает наблюдение за изменениями в фоновом потоке.
+     */
+    public static IndexWatcher start(String directoryPath) throws IOException, InterruptedException {
+        return start(directoryPath, new IndexOptions());
+    }
+
+    public static IndexWatcher start(String directoryPath, IndexOptions options) throws IOException, InterruptedException {
+        Path root = Paths.get(directoryPath);
+        if (!Files.isDirectory(root)) {
+            throw new NoSuchFileException(directoryPath);
+        }
+
+        JavaSourceIndexer.indexJavaSources(directoryPath, options);
+
+        SourceDiscovery discovery = new SourceDiscovery(root, options.getIncludeGlobs(), options.getExcludeGlobs());
+        IndexWatcher watcher = new IndexWatcher(root, discovery, options);
+        try {
+            watcher.registerTree(root);
+        } catch (IOException e) {
+            watcher.close();
+            throw e;
+        }
+        watcher.thread.start();
+        logger.info("Наблюдение за изменениями запущено: {}", root);
+        return watcher;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (discovery.isExcludedDirectory(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watchLoop() {
+        long firstEventTime = 0;
+        try {
+            while (running) {
+                WatchKey key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                long now = System.currentTimeMillis();
+
+                if (key != null) {
+                    if (firstEventTime == 0) {
+                        firstEventTime = now;
+                    }
+                    collectEvents(key);
+                }
+
+                boolean quiet = key == null;
+                boolean overdue = firstEventTime != 0 && now - firstEventTime >= MAX_DELAY_MILLIS;
+                if ((quiet || overdue) && (rescanPending || !pendingFiles.isEmpty())) {
+                    applyChanges();
+                    firstEventTime = 0;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Наблюдение за изменениями остановлено из-за ошибки.", e);
+        }
+    }
+
+    private void collectEvents(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // События потеряны: дерево будет сверено с манифестом целиком.
+                rescanPending = true;
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (discovery.isExcludedDirectory(path)) {
+                    continue;
+                }
+                try {
+                    registerTree(path);
+                    discovery.walk(path, pendingFiles::add);
+                } catch (IOException | InterruptedException e) {
+                    logger.warn("Не удалось начать наблюдение за каталогом: {}", path, e);
+                    rescanPending = true;
+                }
+            } else if (event.kind() == ENTRY_DELETE && !path.toString().endsWith(".java")) {
+                // Удаление каталога: затрагиваются все файлы манифеста внутри него.
+                String prefix = path + path.getFileSystem().getSeparator();
+                for (String file : manifest.getFiles()) {
+                    if (file.startsWith(prefix)) {
+                        pendingFiles.add(Paths.get(file));
+                    }
+                }
+            } else if (discovery.isSourceFile(path)) {
+                pendingFiles.add(path);
+            }
+        }
+        key.reset();
+    }
+
+    private void applyChanges() throws IOException, InterruptedException {
+        if (rescanPending) {
+            rescanPending = false;
+            discovery.walk(pendingFiles::add);
+            for (String file : manifest.getFiles()) {
+                pendingFiles.add(Paths.get(file));
+            }
+        }
+
+        List<Path> changes = new ArrayList<>(pendingFiles);
+        pendingFiles.clear();
+
+        for (int from = 0; from < changes.size(); from += BATCH_SIZE) {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (Path file : changes.subList(from, Math.min(changes.size(), from + BATCH_SIZE))) {
+                tasks.add(() -> {
+                    applyChange(file);
+                    return null;
+                });
+            }
+            executor.invokeAll(tasks);
+
+            shards.commit(null);
+            manifest.save(indexDirectory);
+            IndexSearchers.refresh();
+        }
+        logger.info("Изменения применены к индексу, файлов: {}", changes.size());
+    }
+
+    private void applyChange(Path file) {
+        try {
+            if (isJavaFile(file)) {
+                if (JavaSourceIndexer.indexJavaFile(file, shards.writerFor(file.toString()), manifest, manifest, options)) {
+                    logger.info("Файл переиндексирован: {}", file);
+                }
+            } else if (manifest.get(file.toString()) != null) {
+                JavaSourceIndexer.deleteJavaFile(file.toString(), shards.writerFor(file.toString()), manifest);
+                logger.info("Файл удален из индекса: {}", file);
+            }
+        } catch (NoSuchFileException e) {
+            // Файл удален между событием и обработкой: следующее событие удаления его уберет.
+            logger.debug("Файл исчез до обработки: {}", file);
+        } catch (Exception e) {
+            logger.error("Ошибка при индексации файла: {}", file, e);
+        }
+    }
+
+    private boolean isJavaFile(Path file) {
+        return discovery.isSourceFile(file) && Files.isRegularFile(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        thread.interrupt();
+        watchService.close();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        try {
+            shards.close();
+            manifest.save(indexDirectory);
+        } finally {
+            analyzer.close();
+        }
+        logger.info("Наблюдение за изменениями остановлено: {}", root);
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Единственный в процессе путь изменения индекса для консоли и сервера поиска.
+ * Индекс может изменять только один процесс записи, поэтому индексация выполняется по одной,
+ * а наблюдение за изменениями ведется не более чем для одного дерева: новая индексация
+ * сначала прекращает прежнее наблюдение, чтобы полная перестройка не удалила каталог
+ * индекса, пока наблюдатель держит его открытым.
+ */
+public final class Indexing {
+
+    private static final ReentrantLock lock = new ReentrantLock();
+
+    /** Изменяется только под lock. */
+    private static volatile IndexWatcher watcher;
+
+    private Indexing() {
+    }
+
+    /**
+     * Индексирует дерево path, а с watch затем поддерживает индекс актуальным.
+     *
+     * @return false, если индексация уже выполняется
+     */
+    public static boolean tryIndex(String path, IndexOptions options, boolean watch) throws IOException, InterruptedException {
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            stopWatcherLocked();
+            if (watch) {
+                watcher = IndexWatcher.start(path, options);
+            } else {
+                JavaSourceIndexer.indexJavaSources(path, options);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Прекращает наблюдение, дождавшись выполняемой индексации.
+     *
+     * @return корень дерева, наблюдение за которым прекращено, или null, если наблюдения не было
+     */
+    public static Path stopWatcher() throws IOException {
+        lock.lock();
+        try {
+            return stopWatcherLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Path stopWatcherLocked() throws IOException {
+        IndexWatcher current = watcher;
+        if (current == null) {
+            return null;
+        }
+        watcher = null;
+        current.close();
+        return current.getRoot();
+    }
+
+    public static boolean isRunning() {
+        return lock.isLocked();
+    }
+
+    /**
+     * Корень дерева, за которым ведется наблюдение, или null.
+     */
+    public static Path getWatchedRoot() {
+        IndexWatcher current = watcher;
+        return current == null ? null : current.getRoot();
+    }
+}
@@ -1,27 +1,50 @@
 package org.example;
 
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
-import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.example.extractors.*;
@@ -35,28 +58,111 @@ public class JavaSourceIndexer {
 
     private static final Logger logger = LogManager.getLogger();
 
+    /** Каталог индекса; по умолчанию index в рабочем каталоге. */
+    private static volatile Path indexDirectory = Paths.get("index");
+
+    private static final ParseStatistics parseStatistics = new ParseStatistics();
+
+    /** Ключ данных коммита, в котором хранится режим индекса. */
+    static final String MODE_KEY = "mode";
+    static final String MODE_FULL = "full";
+    static final String MODE_LITERALS_ONLY = "literals-only";
+
+    /** Маркер конца очереди файлов для потоков индексации. */
+    private static final Path END_OF_QUEUE = Paths.get("");
+
+    public static Path getIndexDirectory() {
+        return indexDirectory;
+    }
+
+    /**
+     * Меняет каталог индекса для индексации и поиска. Открытый для поиска индекс
+     * закрывается, и следующий запрос откроет индекс в новом каталоге.
+     */
+    public static void setIndexDirectory(Path directory) {
+        indexDirectory = directory;
+        IndexSearchers.close();
+    }
+
     public static void indexJavaSources(String directoryPath) throws IOException, InterruptedException {
-        Path indexDirectoryPath = Paths.get("index");
+        indexJavaSources(directoryPath, false);
+    }
 
-        deleteDirectoryRecursively(indexDirectoryPath);
+    public static void indexJavaSources(String directoryPath, boolean fullRebuild) throws IOException, InterruptedException {
+        indexJavaSources(directoryPath, new IndexOptions().setFullRebuild(fullRebuild));
+    }
 
-        try (MMapDirectory directory = new MMapDirectory(indexDirectoryPath);
-             StandardAnalyzer analyzer = new StandardAnalyzer();
-             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(analyzer))) {
+    public static void indexJavaSources(String directoryPath, int threadCount, boolean fullRebuild) throws IOException, InterruptedException {
+        indexJavaSources(directoryPath, new IndexOptions().setThreadCount(threadCount).setFullRebuild(fullRebuild));
+    }
 
-            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-            try {
-                Files.walk(Paths.get(directoryPath))
-                        .filter(Files::isRegularFile)
-                        .filter(file -> file.toString().endsWith(".java"))
-                        .forEach(file -> executor.submit(() -> {
+    /**
+     * Индексирует Java-файлы каталога.
+     * В инкрементальном режиме заново разбираются только добавленные и измененные файлы,
+     * а документы удаленных файлов убираются из индекса. Полная перестройка выполняется,
+     * если она запрошена явно, манифест предыдущей индексации отсутствует
+     * или индекс был построен в другом режиме (полный или только литералы), по другой схеме
+     * или с другим числом шардов.
+     * <p>
+     * Обход каталогов идет параллельно с разбором и передает файлы потокам через
+     * ограниченную очередь: при заполнении очереди обход ждет, поэтому расход памяти
+     * не зависит от размера дерева. Каждый файл записывается IndexWriter своего шарда.
+     */
+    public static void indexJavaSources(String directoryPath, IndexOptions options) throws IOException, InterruptedException {
+        Path indexDirectoryPath = indexDirectory;
+
+        String mode = indexMode(options);
+        IndexManifest previousManifest = options.isFullRebuild() || !indexExists(indexDirectoryPath)
+                || !isCompatible(indexDirectoryPath, mode, options.getShardCount())
+                ? null : IndexManifest.load(indexDirectoryPath);
+        boolean incremental = previousManifest != null;
+        if (!incremental) {
+            // Открытый для поиска индекс закрывается до удаления его файлов.
+            IndexSearchers.close();
+            deleteDirectoryRecursively(indexDirectoryPath);
+        }
+        IndexManifest manifest = new IndexManifest();
+        parseStatistics.reset();
+
+        SourceDiscovery discovery = new SourceDiscovery(Paths.get(directoryPath),
+                options.getIncludeGlobs(), options.getExcludeGlobs());
+
+        try (Analyzer analyzer = IndexSchema.createAnalyzer();
+             IndexShards shards = IndexShards.open(indexDirectoryPath, options.getShardCount(), analyzer,
+                     incremental ? IndexWriterConfig.OpenMode.APPEND : IndexWriterConfig.OpenMode.CREATE)) {
+
+            Set<String> failedFiles = ConcurrentHashMap.newKeySet();
+            AtomicInteger changedFiles = new AtomicInteger();
+            BlockingQueue<Path> queue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+            int threadCount = options.getThreadCount();
+
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                executor.submit(() -> {
+                    try {
+                        Path file;
+                        while ((file = queue.take()) != END_OF_QUEUE) {
                             try {
-                                indexJavaFile(file, writer);
-                                logger.info("Файл проиндексирован: {}", file);
+                                if (indexJavaFile(file, shards.writerFor(file.toString()), previousManifest, manifest, options)) {
+                                    changedFiles.incrementAndGet();
+                                    logger.info("Файл проиндексирован: {}", file);
+                                }
                             } catch (Exception e) {
+                                failedFiles.add(file.toString());
                                 logger.error("Ошибка при индексации файла: {}", file, e);
                             }
-                        }));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            try {
+                discovery.walk(queue::put);
+                for (int i = 0; i < threadCount; i++) {
+                    queue.put(END_OF_QUEUE);
+                }
 
                 executor.shutdown();
                 if (!executor.awaitTermination(1, TimeUnit.HOURS)) {
@@ -73,13 +179,75 @@ public class JavaSourceIndexer {
                     executor.shutdownNow();
                 }
             }
-            //logger.info("Индексация успешно завершена.");
+
+            // Файлы, которые не удалось разобрать, не удаляются: их прежние документы остаются в индексе.
+            int deletedFiles = 0;
+            if (incremental) {
+                for (String file : previousManifest.getFiles()) {
+                    if (manifest.get(file) == null && !failedFiles.contains(file)) {
+                        deleteJavaFile(file, shards.writerFor(file), manifest);
+                        deletedFiles++;
+                        logger.info("Файл удален из индекса: {}", file);
+                    }
+                }
+            }
+
+            shards.commit(Map.of(MODE_KEY, mode, IndexSchema.VERSION_KEY, IndexSchema.VERSION));
+            // Манифест сохраняется после фиксации индекса: при сбое между ними
+            // следующий запуск просто повторно обработает файлы, что безопасно.
+            manifest.save(indexDirectoryPath);
+            IndexSearchers.refresh();
+            logger.info("Индексация ({}): обработано файлов {}, изменено {}, удалено {}, шардов {}",
+                    incremental ? "инкрементальная" : "полная", manifest.size() + failedFiles.size(),
+                    changedFiles.get(), deletedFiles, shards.size());
+            logger.info("Разбор файлов: SLL {}, откат к LL {}, потоковый режим {}, только лексер {}",
+                    parseStatistics.getSllFiles(), parseStatistics.getLlFallbackFiles(), parseStatistics.getStreamingFiles(),
+                    parseStatistics.getLexerOnlyFiles());
         } catch (IOException | InterruptedException e) {
             logger.error("Ошибка при индексировании.", e);
             throw e;
         }
     }
 
+    static boolean indexExists(Path indexDirectoryPath) throws IOException {
+        Path firstShard = IndexShards.shardPath(indexDirectoryPath, 0, IndexShards.existingShardCount(indexDirectoryPath));
+        if (!Files.isDirectory(firstShard)) {
+            return false;
+        }
+        try (MMapDirectory directory = new MMapDirectory(firstShard)) {
+            return DirectoryReader.indexExists(directory);
+        }
+    }
+
+    static String indexMode(IndexOptions options) {
+        return options.isLiteralsOnly() ? MODE_LITERALS_ONLY : MODE_FULL;
+    }
+
+    /**
+     * Возвращает данные последнего коммита индекса: режим и версию схемы.
+     * Все шарды фиксируются с одинаковыми данными, поэтому читается первый.
+     */
+    static Map<String, String> readCommitData(Path indexDirectoryPath) throws IOException {
+        Path firstShard = IndexShards.shardPath(indexDirectoryPath, 0, IndexShards.existingShardCount(indexDirectoryPath));
+        try (MMapDirectory directory = new MMapDirectory(firstShard);
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return reader.getIndexCommit().getUserData();
+        }
+    }
+
+    /**
+     * Индекс можно дополнять, если он построен в том же режиме, по текущей схеме
+     * и с тем же числом шардов. Индексы без отметки режима считаются полными.
+     */
+    private static boolean isCompatible(Path indexDirectoryPath, String mode, int shardCount) throws IOException {
+        if (IndexShards.existingShardCount(indexDirectoryPath) != shardCount) {
+            return false;
+        }
+        Map<String, String> commitData = readCommitData(indexDirectoryPath);
+        return mode.equals(commitData.getOrDefault(MODE_KEY, MODE_FULL))
+                && IndexSchema.VERSION.equals(commitData.get(IndexSchema.VERSION_KEY));
+    }
+
     private static void deleteDirectoryRecursively(Path path) throws IOException {
         if (Files.exists(path)) {
             Files.walk(path)
@@ -94,167 +262,268 @@ public class JavaSourceIndexer {
         }
     }
 
-    private static void indexJavaFile(Path file, IndexWriter writer) throws Exception {
-        String content = Files.readString(file);
-
-        JavaStringExtractor stringExtractor = new JavaStringExtractor();
-        stringExtractor.setCurrentFile(file.toString());
-
-        synchronized (writer) {
-            List<JavaStringExtractor.ExtractedString> stringLiterals = extractStringLiterals(content, stringExtractor);
-            for (JavaStringExtractor.ExtractedString str : stringLiterals) {
-                Document doc = new Document();
-                doc.add(new StringField("content", str.getValue(), StringField.Store.YES));
-                doc.add(new StringField("content_lowercase", str.getValue().toLowerCase(), StringField.Store.NO));
-                doc.add(new StringField("file", str.getFile(), StringField.Store.YES));
-                doc.add(new StringField("line", String.valueOf(str.getLine()), StringField.Store.YES));
-                doc.add(new StringField("type", "StringConstant", StringField.Store.YES));
-                writer.addDocument(doc);
-            }
-        }
-
-        JavaClassExtractor classExtractor = new JavaClassExtractor();
-        classExtractor.setCurrentFile(file.toString());
-
-        synchronized (writer) {
-            List<JavaClassExtractor.ExtractedClass> classes = extractClasses(content, classExtractor);
-            for (JavaClassExtractor.ExtractedClass cls : classes) {
-                Document doc = new Document();
-                doc.add(new StringField("content", cls.getClassName(), StringField.Store.YES));
-                doc.add(new StringField("content_lowercase", cls.getClassName().toLowerCase(), StringField.Store.NO));
-                doc.add(new StringField("file", cls.getFile(), StringField.Store.YES));
-                doc.add(new StringField("line", String.valueOf(cls.getLine()), StringField.Store.YES));
-                doc.add(new StringField("type", "Class", StringField.Store.YES));
-                writer.addDocument(doc);
-            }
+    /**
+     * Индексирует файл, если он добавлен или изменился с предыдущей индексации.
+     * Документы файла заменяются одним пакетом по термину file, без глобальной блокировки:
+     * IndexWriter потокобезопасен. Документы строятся до удаления прежних, а если добавить их
+     * не удалось, файл убирается из индекса и манифеста целиком. Файлы больше порога из параметров разбираются
+     * в потоковом режиме без построения дерева, а в режиме только литералов
+     * проходят лишь лексический анализ.
+     *
+     * @return true, если файл был заново разобран
+     */
+    static boolean indexJavaFile(Path file, IndexWriter writer, IndexManifest previousManifest,
+                                 IndexManifest manifest, IndexOptions options) throws IOException {
+        String fileName = file.toString();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        IndexManifest.Entry previous = previousManifest == null ? null : previousManifest.get(fileName);
+        if (previous != null && previous.matches(size, lastModified)) {
+            manifest.put(fileName, previous);
+            return false;
         }
 
-        JavaMethodExtractor methodExtractor = new JavaMethodExtractor();
-        methodExtractor.setCurrentFile(file.toString());
-
-        synchronized (writer) {
-            List<JavaMethodExtractor.ExtractedMethod> methods = extractMethods(content, methodExtractor);
-            for (JavaMethodExtractor.ExtractedMethod method : methods) {
-                Document doc = new Document();
-                doc.add(new StringField("content", method.getMethodName(), StringField.Store.YES));
-                doc.add(new StringField("content_lowercase", method.getMethodName().toLowerCase(), StringField.Store.NO));
-                doc.add(new StringField("file", method.getFile(), StringField.Store.YES));
-                doc.add(new StringField("line", String.valueOf(method.getLine()), StringField.Store.YES));
-                doc.add(new StringField("type", "Method", StringField.Store.YES));
-                writer.addDocument(doc);
-            }
+        boolean streaming = size > options.getStreamingThreshold();
+        byte[] bytes = streaming ? null : Files.readAllBytes(file);
+        // Большой файл хешируется до разбора, только если мог не измениться (размер прежний);
+        // иначе хеш считается при разборе, и файл читается один раз.
+        String hash = !streaming ? IndexManifest.hash(bytes)
+                : previous != null && previous.getSize() == size ? IndexManifest.hash(file) : null;
+        if (hash != null && previous != null && previous.getHash().equals(hash)) {
+            manifest.put(fileName, new IndexManifest.Entry(size, lastModified, hash));
+            return false;
         }
 
-        JavaInterfaceExtractor interfaceExtractor = new JavaInterfaceExtractor();
-        interfaceExtractor.setCurrentFile(file.toString());
-
-        synchronized (writer) {
-            List<JavaInterfaceExtractor.ExtractedInterface> interfaces = extractInterfaces(content, interfaceExtractor);
-            for (JavaInterfaceExtractor.ExtractedInterface iface : interfaces) {
-                Document doc = new Document();
-                doc.add(new StringField("content", iface.getInterfaceName(), StringField.Store.YES));
-                doc.add(new StringField("content_lowercase", iface.getInterfaceName().toLowerCase(), StringField.Store.NO));
-                doc.add(new StringField("file", iface.getFile(), StringField.Store.YES));
-                doc.add(new StringField("line", String.valueOf(iface.getLine()), StringField.Store.YES));
-                doc.add(new StringField("type", "Interface", StringField.Store.YES));
-                writer.addDocument(doc);
+        List<Document> documents;
+        if (streaming) {
+            try (DigestInputStream input = IndexManifest.hashingStream(Files.newInputStream(file));
+                 Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                documents = options.isLiteralsOnly()
+                        ? buildLiteralDocumentsStreaming(file, reader)
+                        : buildDocumentsStreaming(file, reader);
+                hash = IndexManifest.hash(input);
             }
+        } else {
+            String content = new String(bytes, StandardCharsets.UTF_8);
+            documents = options.isLiteralsOnly() ? buildLiteralDocuments(file, content) : buildDocuments(file, content);
         }
-
-        JavaFieldExtractor fieldExtractor = new JavaFieldExtractor();
-        fieldExtractor.setCurrentFile(file.toString());
-
-        synchronized (writer) {
-            List<JavaFieldExtractor.ExtractedField> fields = extractFields(content, fieldExtractor);
-            for (JavaFieldExtractor.ExtractedField field : fields) {
-                Document doc = new Document();
-                doc.add(new StringField("content", field.getFieldName(), StringField.Store.YES));
-                doc.add(new StringField("content_lowercase", field.getFieldName().toLowerCase(), StringField.Store.NO));
-                doc.add(new StringField("file", field.getFile(), StringField.Store.YES));
-                doc.add(new StringField("line", String.valueOf(field.getLine()), StringField.Store.YES));
-                doc.add(new StringField("type", "Field", StringField.Store.YES));
-                doc.add(new StringField("varType", field.getType(), Field.Store.YES));
-                writer.addDocument(doc);
-            }
+        // Сортированный индекс не допускает блоков документов, поэтому документы добавляются по одному.
+        // Поиск видит только зафиксированный индекс, и замена документов файла остается для него атомарной.
+        if (previousManifest != null) {
+            writer.deleteDocuments(new Term(IndexSchema.FILE, fileName));
         }
-
-        JavaLocalVariableExtractor localVarExtractor = new JavaLocalVariableExtractor();
-        localVarExtractor.setCurrentFile(file.toString());
-
-        synchronized (writer) {
-            List<JavaLocalVariableExtractor.ExtractedLocalVariable> localVariables = extractLocalVariables(content, localVarExtractor);
-            for (JavaLocalVariableExtractor.ExtractedLocalVariable localVar : localVariables) {
-                Document doc = new Document();
-                doc.add(new StringField("content", localVar.getVariableName(), StringField.Store.YES));
-                doc.add(new StringField("content_lowercase", localVar.getVariableName().toLowerCase(), StringField.Store.NO));
-                doc.add(new StringField("file", localVar.getFile(), StringField.Store.YES));
-                doc.add(new StringField("line", String.valueOf(localVar.getLine()), StringField.Store.YES));
-                doc.add(new StringField("type", "LocalVariable", StringField.Store.YES));
-                doc.add(new StringField("varType", localVar.getType(), Field.Store.YES));
-                writer.addDocument(doc);
+        try {
+            for (Document document : documents) {
+                writer.addDocument(document);
             }
-        }
-
-        JavaLiteralExtractor literalExtractor = new JavaLiteralExtractor();
-        literalExtractor.setCurrentFile(file.toString());
-
-        synchronized (writer) {
-            List<JavaLiteralExtractor.ExtractedLiteral> literals = extractLiterals(content, literalExtractor);
-            for (JavaLiteralExtractor.ExtractedLiteral literal : literals) {
-                Document doc = new Document();
-                doc.add(new StringField("content", literal.getValue(), StringField.Store.YES));
-                doc.add(new StringField("content_lowercase", literal.getValue().toLowerCase(), StringField.Store.NO));
-                doc.add(new StringField("file", literal.getFile(), StringField.Store.YES));
-                doc.add(new StringField("line", String.valueOf(literal.getLine()), StringField.Store.YES));
-                doc.add(new StringField("type", literal.getType(), StringField.Store.YES));
-                writer.addDocument(doc);
+        } catch (IOException | RuntimeException e) {
+            // Файл убирается из индекса целиком, чтобы не остаться в нем частично.
+            try {
+                deleteJavaFile(fileName, writer, manifest);
+            } catch (IOException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
             }
+            throw e;
         }
+        manifest.put(fileName, new IndexManifest.Entry(size, lastModified, hash));
+        return true;
     }
 
-    private static <T> T extractWithWalker(String content, JavaBaseListener extractor, ExtractResultCallback<T> callback) {
-        JavaLexer lexer = new JavaLexer(CharStreams.fromString(content));
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        JavaParser parser = new JavaParser(tokens);
+    /**
+     * Удаляет из индекса все документы файла и его запись в манифесте.
+     */
+    static void deleteJavaFile(String fileName, IndexWriter writer, IndexManifest manifest) throws IOException {
+        writer.deleteDocuments(new Term(IndexSchema.FILE, fileName));
+        manifest.remove(fileName);
+    }
 
-        ParseTree tree = parser.compilationUnit();
-        ParseTreeWalker walker = new ParseTreeWalker();
-        walker.walk(extractor, tree);
+    /**
+     * Разбирает файл и строит документы для всех найденных в нем объектов.
+     * Не обращается к IndexWriter, поэтому может выполняться параллельно для разных файлов.
+     */
+    static List<Document> buildDocuments(Path file, String content) {
+        FileExtractors extractors = new FileExtractors(file.toString());
+        // Файл разбирается один раз, все экстракторы получают события за один обход дерева.
+        extractWithWalker(content, extractors.listener());
+        return extractors.toDocuments();
+    }
 
-        return callback.getResult(extractor);
+    /**
+     * Потоковый вариант buildDocuments для очень больших файлов: содержимое читается из reader
+     * без загрузки в память целиком, полное дерево разбора не строится.
+     */
+    static List<Document> buildDocumentsStreaming(Path file, Reader reader) {
+        FileExtractors extractors = new FileExtractors(file.toString());
+        extractStreaming(reader, extractors.listener());
+        return extractors.toDocuments();
     }
 
-    @FunctionalInterface
-    private interface ExtractResultCallback<T> {
-        T getResult(JavaBaseListener extractor);
+    /**
+     * Строит документы только для литералов и строковых констант по потоку токенов, без парсера.
+     */
+    static List<Document> buildLiteralDocuments(Path file, String content) {
+        return extractLiterals(file, new JavaLexer(CharStreams.fromString(content)));
     }
 
-    private static List<JavaStringExtractor.ExtractedString> extractStringLiterals(String content, JavaStringExtractor extractor) {
-        return extractWithWalker(content, extractor, e -> ((JavaStringExtractor) e).getStrings());
+    /**
+     * Вариант buildLiteralDocuments для очень больших файлов: символы читаются из reader небуферизованным потоком.
+     */
+    static List<Document> buildLiteralDocumentsStreaming(Path file, Reader reader) {
+        JavaLexer lexer = new JavaLexer(new UnbufferedCharStream(reader));
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        return extractLiterals(file, lexer);
     }
 
-    private static List<JavaClassExtractor.ExtractedClass> extractClasses(String content, JavaClassExtractor extractor) {
-        return extractWithWalker(content, extractor, e -> ((JavaClassExtractor) e).getClasses());
+    private static List<Document> extractLiterals(Path file, JavaLexer lexer) {
+        JavaTokenLiteralExtractor extractor = new JavaTokenLiteralExtractor();
+        extractor.setCurrentFile(file.toString());
+        extractor.extract(lexer);
+        parseStatistics.recordLexerOnly();
+
+        List<Document> documents = new ArrayList<>();
+        for (JavaStringExtractor.ExtractedString str : extractor.getStrings()) {
+            documents.add(IndexSchema.symbolDocument(str.getValue(), str.getFile(), str.getLine(), SymbolType.STRING_CONSTANT));
+        }
+        for (JavaLiteralExtractor.ExtractedLiteral literal : extractor.getLiterals()) {
+            documents.add(IndexSchema.symbolDocument(literal.getValue(), literal.getFile(), literal.getLine(), SymbolType.fromName(literal.getType())));
+        }
+        return documents;
     }
 
-    private static List<JavaMethodExtractor.ExtractedMethod> extractMethods(String content, JavaMethodExtractor extractor) {
-        return extractWithWalker(content, extractor, e -> ((JavaMethodExtractor) e).getMethods());
+    /**
+     * Набор экстракторов для одного файла и построение документов по их результатам.
+     */
+    private static class FileExtractors {
+        private final JavaStringExtractor stringExtractor = new JavaStringExtractor();
+        private final JavaClassExtractor classExtractor = new JavaClassExtractor();
+        private final JavaMethodExtractor methodExtractor = new JavaMethodExtractor();
+        private final JavaInterfaceExtractor interfaceExtractor = new JavaInterfaceExtractor();
+        private final JavaFieldExtractor fieldExtractor = new JavaFieldExtractor();
+        private final JavaLocalVariableExtractor localVarExtractor = new JavaLocalVariableExtractor();
+        private final JavaLiteralExtractor literalExtractor = new JavaLiteralExtractor();
+
+        FileExtractors(String fileName) {
+            stringExtractor.setCurrentFile(fileName);
+            classExtractor.setCurrentFile(fileName);
+            methodExtractor.setCurrentFile(fileName);
+            interfaceExtractor.setCurrentFile(fileName);
+            fieldExtractor.setCurrentFile(fileName);
+            localVarExtractor.setCurrentFile(fileName);
+            literalExtractor.setCurrentFile(fileName);
+        }
+
+        ParseTreeListener listener() {
+            return new CompositeJavaListener(stringExtractor, classExtractor, methodExtractor,
+                    interfaceExtractor, fieldExtractor, localVarExtractor, literalExtractor);
+        }
+
+        List<Document> toDocuments() {
+            List<Document> documents = new ArrayList<>();
+
+            for (JavaStringExtractor.ExtractedString str : stringExtractor.getStrings()) {
+                documents.add(IndexSchema.symbolDocument(str.getValue(), str.getFile(), str.getLine(), SymbolType.STRING_CONSTANT));
+            }
+
+            for (JavaClassExtractor.ExtractedClass cls : classExtractor.getClasses()) {
+                documents.add(IndexSchema.symbolDocument(cls.getClassName(), cls.getFile(), cls.getLine(), SymbolType.CLASS));
+            }
+
+            for (JavaMethodExtractor.ExtractedMethod method : methodExtractor.getMethods()) {
+                documents.add(IndexSchema.symbolDocument(method.getMethodName(), method.getFile(), method.getLine(), SymbolType.METHOD));
+            }
+
+            for (JavaInterfaceExtractor.ExtractedInterface iface : interfaceExtractor.getInterfaces()) {
+                documents.add(IndexSchema.symbolDocument(iface.getInterfaceName(), iface.getFile(), iface.getLine(), SymbolType.INTERFACE));
+            }
+
+            for (JavaFieldExtractor.ExtractedField field : fieldExtractor.getFields()) {
+                Document doc = IndexSchema.symbolDocument(field.getFieldName(), field.getFile(), field.getLine(), SymbolType.FIELD);
+                IndexSchema.addVarType(doc, field.getType());
+                documents.add(doc);
+            }
+
+            for (JavaLocalVariableExtractor.ExtractedLocalVariable localVar : localVarExtractor.getVariables()) {
+                Document doc = IndexSchema.symbolDocument(localVar.getVariableName(), localVar.getFile(), localVar.getLine(), SymbolType.LOCAL_VARIABLE);
+                IndexSchema.addVarType(doc, localVar.getType());
+                documents.add(doc);
+            }
+
+            for (JavaLiteralExtractor.ExtractedLiteral literal : literalExtractor.getLiterals()) {
+                documents.add(IndexSchema.symbolDocument(literal.getValue(), literal.getFile(), literal.getLine(), SymbolType.fromName(literal.getType())));
+            }
+
+            return documents;
+        }
     }
 
-    private static List<JavaInterfaceExtractor.ExtractedInterface> extractInterfaces(String content, JavaInterfaceExtractor extractor) {
-        return extractWithWalker(content, extractor, e -> ((JavaInterfaceExtractor) e).getInterfaces());
+    static void extractWithWalker(String content, ParseTreeListener listener) {
+        ParseTree tree = parse(content);
+        ParseTreeWalker walker = new ParseTreeWalker();
+        walker.walk(listener, tree);
     }
 
-    private static List<JavaFieldExtractor.ExtractedField> extractFields(String content, JavaFieldExtractor extractor) {
-        return extractWithWalker(content, extractor, e -> ((JavaFieldExtractor) e).getFields());
+    /**
+     * Двухэтапный разбор: сначала быстрый режим SLL с прерыванием на первой ошибке,
+     * и только если он не справился — полный LL с восстановлением после ошибок.
+     * Для корректного кода SLL дает то же дерево, что и LL, но заметно быстрее.
+     */
+    static ParseTree parse(String content) {
+        JavaLexer lexer = new JavaLexer(CharStreams.fromString(content));
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        JavaParser parser = new JavaParser(tokens);
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            ParseTree tree = parser.compilationUnit();
+            parseStatistics.recordSll();
+            return tree;
+        } catch (ParseCancellationException e) {
+            // Токены уже получены, повторный разбор идет по тому же потоку без повторного лексического анализа.
+            tokens.seek(0);
+            parser.reset();
+            parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parseStatistics.recordLlFallback();
+            return parser.compilationUnit();
+        }
     }
 
-    private static List<JavaLocalVariableExtractor.ExtractedLocalVariable> extractLocalVariables(String content, JavaLocalVariableExtractor extractor) {
-        return extractWithWalker(content, extractor, e -> ((JavaLocalVariableExtractor) e).getVariables());
+    /**
+     * Потоковое извлечение без построения дерева разбора.
+     * Символы и токены читаются небуферизованными потоками, а экстракторы получают события
+     * через слушатель разбора по мере завершения правил. Память ограничена глубиной
+     * вложенности и размером отдельного объявления, а не размером файла.
+     * Откат SLL/LL здесь невозможен, так как поток нельзя перемотать, поэтому сразу используется LL.
+     */
+    static void extractStreaming(Reader reader, ParseTreeListener listener) {
+        JavaLexer lexer = new JavaLexer(new UnbufferedCharStream(reader)) {
+            @Override
+            public Token nextToken() {
+                // В отличие от CommonTokenStream, небуферизованный поток не отбрасывает скрытый канал.
+                Token token;
+                do {
+                    token = super.nextToken();
+                } while (token.getChannel() != Token.DEFAULT_CHANNEL);
+                return token;
+            }
+        };
+        // Текст токена копируется сразу: небуферизованный поток символов не хранит прочитанное.
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        JavaParser parser = new JavaParser(new UnbufferedTokenStream<>(lexer));
+
+        parser.setBuildParseTree(false);
+        parser.addParseListener(new StreamingParseListener(listener));
+        parser.compilationUnit();
+        parseStatistics.recordStreaming();
     }
 
-    private static List<JavaLiteralExtractor.ExtractedLiteral> extractLiterals(String content, JavaLiteralExtractor extractor) {
-        return extractWithWalker(content, extractor, e -> ((JavaLiteralExtractor) e).getLiterals());
+    public static ParseStatistics getParseStatistics() {
+        return parseStatistics;
     }
 
     public static void main(String[] args) throws IOException, InterruptedException {
@@ -0,0 +1,99 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Записывает результаты в формате JSON Lines: по объекту на строку с полями
+ * type, content, file, line и varType. Если запрос остановлен, последней строкой записывается
+ * объект {"incomplete":"timeout"} или {"incomplete":"cancelled"}. С заголовками перед результатами
+ * каждого запроса записывается объект с полями query, type, mode и totalHits, что позволяет
+ * разделить ответы пакета. Поток записи не закрывается.
+ */
+public class JsonLinesResultSink implements ResultSink {
+
+    private final Writer out;
+    private final boolean headers;
+
+    public JsonLinesResultSink(Writer out) {
+        this(out, false);
+    }
+
+    public JsonLinesResultSink(Writer out, boolean headers) {
+        this.out = out;
+        this.headers = headers;
+    }
+
+    @Override
+    public synchronized void begin(SearchRequest request, int totalHits) throws IOException {
+        if (headers) {
+            out.write("{\"query\":");
+            writeString(out, request.query());
+            out.write(",\"type\":");
+            writeString(out, request.type().getName());
+            out.write(",\"mode\":");
+            writeString(out, request.mode().name().toLowerCase());
+            out.write(",\"totalHits\":");
+            out.write(Integer.toString(totalHits));
+            out.write("}\n");
+        }
+    }
+
+    @Override
+    public synchronized void accept(SymbolResult result) throws IOException {
+        out.write("{\"type\":");
+        writeString(result.type().getName());
+        out.write(",\"content\":");
+        writeString(result.content());
+        out.write(",\"file\":");
+        writeString(result.file());
+        out.write(",\"line\":");
+        out.write(Integer.toString(result.line()));
+        out.write(",\"varType\":");
+        writeString(result.varType());
+        out.write("}\n");
+    }
+
+    @Override
+    public synchronized void incomplete(boolean cancelled) throws IOException {
+        out.write(cancelled ? "{\"incomplete\":\"cancelled\"}\n" : "{\"incomplete\":\"timeout\"}\n");
+    }
+
+    @Override
+    public synchronized void end() throws IOException {
+        out.flush();
+    }
+
+    private void writeString(String value) throws IOException {
+        writeString(out, value);
+    }
+
+    /**
+     * Записывает значение строкой JSON в кавычках или null.
+     */
+    static void writeString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,137 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный клиент для {@link SearchServer}: отправляет запросы /find с заданным числом
+ * одновременных соединений и выводит пропускную способность и задержки p50/p99.
+ * <p>
+ * С заданной частотой запросы назначаются по расписанию, и задержка отсчитывается
+ * от назначенного времени, а не от фактической отправки: если сервер не успевает,
+ * ожидание в очереди входит в задержку, а не скрывается.
+ * <p>
+ * Запуск: LoadTestClient &lt;url&gt; [--requests n] [--concurrency c] [--rate r] [--queries file],
+ * где file содержит по строке параметров /find на запрос, например type=method&amp;q=get&amp;mode=prefix.
+ */
+public final class LoadTestClient {
+
+    private static final int DEFAULT_REQUESTS = 10_000;
+    private static final int DEFAULT_CONCURRENCY = 32;
+    private static final List<String> DEFAULT_QUERIES = List.of("type=method&q=main", "type=class&q=Test&mode=prefix&limit=10");
+
+    private LoadTestClient() {
+    }
+
+    /**
+     * Итоги нагрузки; задержки в наносекундах.
+     */
+    public record Report(int requests, int errors, long elapsedNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+
+        public double requestsPerSecond() {
+            return requests * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Запросов: %d (ошибок %d) за %d мс, %.1f запросов/с, задержка p50 %.2f мс, p99 %.2f мс, максимум %.2f мс",
+                    requests, errors, elapsedNanos / 1_000_000, requestsPerSecond(), p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6);
+        }
+    }
+
+    /**
+     * Выполняет requests запросов к серверу server, перебирая строки параметров queries по кругу.
+     *
+     * @param concurrency число одновременных запросов
+     * @param rate        запросов в секунду или 0, чтобы отправлять без пауз
+     */
+    public static Report run(URI server, List<String> queries, int requests, int concurrency, int rate) throws InterruptedException {
+        if (queries.isEmpty() || requests <= 0 || concurrency <= 0 || rate < 0) {
+            throw new IllegalArgumentException("Некорректные параметры нагрузки");
+        }
+        HttpRequest[] prepared = queries.stream()
+                .map(query -> HttpRequest.newBuilder(server.resolve("/find?" + query)).GET().build())
+                .toArray(HttpRequest[]::new);
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        long start;
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            start = System.nanoTime();
+            for (int worker = 0; worker < concurrency; worker++) {
+                workers.execute(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        long scheduled = rate > 0 ? start + i * 1_000_000_000L / rate : System.nanoTime();
+                        long delay = scheduled - System.nanoTime();
+                        if (delay > 0) {
+                            LockSupport.parkNanos(delay);
+                        }
+                        try {
+                            HttpResponse<Void> response = client.send(prepared[i % prepared.length], HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        latencies[i] = System.nanoTime() - scheduled;
+                    }
+                });
+            }
+        }
+        // Закрытие workers при выходе из блока дожидается завершения всех запросов.
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Report(requests, errors.get(), elapsed, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies[latencies.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Использование: LoadTestClient <url> [--requests n] [--concurrency c] [--rate r] [--queries file]");
+            return;
+        }
+        int requests = DEFAULT_REQUESTS;
+        int concurrency = DEFAULT_CONCURRENCY;
+        int rate = 0;
+        List<String> queries = DEFAULT_QUERIES;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[i + 1]);
+                case "--rate" -> rate = Integer.parseInt(args[i + 1]);
+                case "--queries" -> queries = Files.readAllLines(Paths.get(args[i + 1]), StandardCharsets.UTF_8).stream()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .toList();
+                default -> {
+                    System.out.println("Неизвестный параметр: " + args[i]);
+                    return;
+                }
+            }
+        }
+        System.out.println(run(URI.create(args[0]), queries, requests, concurrency, rate));
+    }
+}
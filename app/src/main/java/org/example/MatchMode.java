@@ -0,0 +1,19 @@
+package org.example;
+
+/**
+ * Способ сопоставления строки запроса со значениями в индексе.
+ */
+public enum MatchMode {
+    /** Точное совпадение значения. */
+    EXACT,
+    /** Совпадение с точностью до двух правок. */
+    FUZZY,
+    /** Значение содержит совпадение с регулярным выражением. */
+    REGEX,
+    /** Значение начинается с запроса; завершающая звездочка запроса не учитывается. */
+    PREFIX,
+    /** Подряд идущие части camelCase имени начинаются с частей запроса: gTF — getTestField. */
+    CAMEL,
+    /** Слова, фразы в кавычках и слова на расстоянии ("a b"~3) внутри строк; ранжируется по BM25. */
+    TEXT
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики разбора файлов за один запуск индексации.
+ * Показывают, сколько файлов разобрано быстрым режимом SLL
+ * и скольким потребовался откат к полному LL-разбору, а также сколько больших
+ * файлов обработано в потоковом режиме без построения дерева
+ * и сколько файлов прошли только лексический анализ.
+ */
+public class ParseStatistics {
+    private final AtomicLong sllFiles = new AtomicLong();
+    private final AtomicLong llFallbackFiles = new AtomicLong();
+    private final AtomicLong streamingFiles = new AtomicLong();
+    private final AtomicLong lexerOnlyFiles = new AtomicLong();
+
+    public void recordSll() {
+        sllFiles.incrementAndGet();
+    }
+
+    public void recordLlFallback() {
+        llFallbackFiles.incrementAndGet();
+    }
+
+    public void recordStreaming() {
+        streamingFiles.incrementAndGet();
+    }
+
+    public void recordLexerOnly() {
+        lexerOnlyFiles.incrementAndGet();
+    }
+
+    public long getSllFiles() {
+        return sllFiles.get();
+    }
+
+    public long getLlFallbackFiles() {
+        return llFallbackFiles.get();
+    }
+
+    public long getStreamingFiles() {
+        return streamingFiles.get();
+    }
+
+    public long getLexerOnlyFiles() {
+        return lexerOnlyFiles.get();
+    }
+
+    public long getTotalFiles() {
+        return sllFiles.get() + llFallbackFiles.get() + streamingFiles.get() + lexerOnlyFiles.get();
+    }
+
+    public void reset() {
+        sllFiles.set(0);
+        llFallbackFiles.set(0);
+        streamingFiles.set(0);
+        lexerOnlyFiles.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "Files: " + getTotalFiles() + ", SLL: " + getSllFiles() + ", LL fallback: " + getLlFallbackFiles() + ", Streaming: " + getStreamingFiles()
+                + ", Lexer only: " + getLexerOnlyFiles();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.apache.lucene.index.QueryTimeout;
+
+import java.time.Duration;
+
+/**
+ * Бюджет времени запроса и его отмена. Lucene проверяет бюджет при обходе терминов и doc values
+ * и при сборе совпадений, поэтому истекший или отмененный запрос останавливается и возвращает
+ * найденное к этому моменту.
+ * <p>
+ * Бюджет может быть порожден другим: отмена родителя (например, пакета запросов) останавливает
+ * и все порожденные бюджеты, а срок каждого свой.
+ */
+public final class QueryBudget implements QueryTimeout {
+
+    private final QueryBudget parent;
+    private final boolean limited;
+    private final long deadline;
+    private volatile boolean cancelled;
+
+    private QueryBudget(QueryBudget parent, Duration timeout) {
+        this.parent = parent;
+        this.limited = timeout != null;
+        this.deadline = limited ? System.nanoTime() + timeout.toNanos() : 0;
+    }
+
+    /**
+     * Бюджет без ограничения времени, который можно только отменить.
+     */
+    public static QueryBudget unlimited() {
+        return new QueryBudget(null, null);
+    }
+
+    /**
+     * Бюджет, истекающий через timeout от текущего момента.
+     */
+    public static QueryBudget of(Duration timeout) {
+        return new QueryBudget(null, timeout);
+    }
+
+    /**
+     * Порожденный бюджет со сроком timeout (null — без ограничения), отменяемый вместе с этим.
+     */
+    public QueryBudget child(Duration timeout) {
+        return new QueryBudget(this, timeout);
+    }
+
+    /**
+     * Отменяет запрос. Безопасно вызывать из любого потока, в том числе из обработчика сигнала.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    public boolean isExpired() {
+        return (limited && System.nanoTime() - deadline >= 0) || (parent != null && parent.isExpired());
+    }
+
+    @Override
+    public boolean shouldExit() {
+        return isCancelled() || isExpired();
+    }
+}
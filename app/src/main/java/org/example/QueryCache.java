@@ -0,0 +1,105 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кеш результатов запросов с вытеснением давно не использованных записей.
+ * Размер ограничен числом записей и суммарным числом хранимых результатов.
+ * Каждая запись помечена поколением индекса {@link IndexSearchers#generation()};
+ * при переходе к новому поколению все прежние записи отбрасываются.
+ */
+public class QueryCache {
+
+    /**
+     * Сохраненный ответ на запрос.
+     *
+     * @param totalHits общее число совпадений
+     * @param results   результаты запрошенной страницы
+     */
+    public record Entry(int totalHits, List<SymbolResult> results) {
+    }
+
+    public record Statistics(long hits, long misses, long evictions, long invalidations, int entries, long results) {
+    }
+
+    private final int maxEntries;
+    private final long maxResults;
+    private final LinkedHashMap<SearchRequest, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long generation;
+    private long cachedResults;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public QueryCache(int maxEntries, long maxResults) {
+        this.maxEntries = maxEntries;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Наибольшее число результатов, которое может храниться в одной записи.
+     */
+    public long getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Возвращает запись, сохраненную для того же поколения индекса, или null.
+     */
+    public synchronized Entry get(SearchRequest request, long generation) {
+        advance(generation);
+        Entry entry = this.generation == generation ? entries.get(request) : null;
+        if (entry != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    /**
+     * Сохраняет ответ, полученный на указанном поколении индекса.
+     * Ответы устаревших поколений и ответы больше всего кеша не сохраняются.
+     */
+    public synchronized void put(SearchRequest request, long generation, Entry entry) {
+        advance(generation);
+        if (this.generation != generation || entry.results().size() > maxResults) {
+            return;
+        }
+        Entry previous = entries.put(request, entry);
+        if (previous != null) {
+            cachedResults -= previous.results().size();
+        }
+        cachedResults += entry.results().size();
+
+        Iterator<Map.Entry<SearchRequest, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || cachedResults > maxResults) {
+            cachedResults -= eldest.next().getValue().results().size();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cachedResults = 0;
+    }
+
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, invalidations, entries.size(), cachedResults);
+    }
+
+    private void advance(long generation) {
+        if (generation > this.generation) {
+            invalidations += entries.size();
+            clear();
+            this.generation = generation;
+        }
+    }
+}
@@ -1,19 +1,25 @@
 package org.example;
 
-import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
-import org.apache.lucene.store.MMapDirectory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.nio.file.Paths;
-import java.util.Set;
-import java.util.concurrent.*;
-import java.util.function.Consumer;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Pattern;
 
 import static org.example.JavaSourceIndexer.indexJavaSources;
 
@@ -25,96 +31,441 @@ import static org.example.JavaSourceIndexer.indexJavaSources;
 public class QueryExecutor {
     private static final Logger logger = LogManager.getLogger();
 
-    public static StringBuilder logBuilder = new StringBuilder();
+    private static final int CACHE_ENTRIES = 1024;
+    private static final long CACHE_RESULTS = 100_000;
 
+    private static final QueryCache cache = new QueryCache(CACHE_ENTRIES, CACHE_RESULTS);
 
-    private static void runQueryWithConfig(String queryString, String type, boolean isFuzzy, boolean isCaseSensitive, Consumer<Document> documentConsumer) {
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    /** Наибольшее число одновременно выполняемых и ожидающих передачи запросов пакета. */
+    private static final int BATCH_WINDOW = 4 * IndexSearchers.THREAD_COUNT;
 
-        try (MMapDirectory directory = new MMapDirectory(Paths.get("index"));
-             IndexReader reader = DirectoryReader.open(directory)) {
+    private static final Analyzer textAnalyzer = IndexSchema.textAnalyzer();
 
-            IndexSearcher searcher = new IndexSearcher(reader);
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
 
-            String field = isCaseSensitive ? "content" : "content_lowercase";
+    /** Как у FuzzyQuery по умолчанию. */
+    public static final int DEFAULT_MAX_FUZZY_EXPANSIONS = 50;
 
-            Query query = new BooleanQuery.Builder()
-                    .add(isFuzzy ? new FuzzyQuery(new Term(field, isCaseSensitive ? queryString : queryString.toLowerCase()), 2)
-                            : new TermQuery(new Term(field, isCaseSensitive ? queryString : queryString.toLowerCase())), BooleanClause.Occur.MUST)
-                    .add(new TermQuery(new Term("type", type)), BooleanClause.Occur.MUST)
-                    .build();
+    private static volatile Duration timeout = DEFAULT_TIMEOUT;
 
-            String queryTypeMessage = isFuzzy ? " (с неточностями)" : "";
-            String logMessage = "Запрос на " + type + queryTypeMessage + ": " + queryString + " (учет регистра: " + isCaseSensitive + ")";
-            logger.info(logMessage);
-            logBuilder.append(logMessage).append("\n");
+    private static volatile int maxFuzzyExpansions = DEFAULT_MAX_FUZZY_EXPANSIONS;
 
-            TopDocs results = searcher.search(query, 100000);
-            logMessage = "Найдено совпадений " + (isFuzzy ? "с" : "c") + " " + queryString + ": " +
-                    results.totalHits.toString().substring(0, Math.max(0, results.totalHits.toString().length() - 5));
-            logger.info(logMessage);
-            logBuilder.append(logMessage).append("\n");
+    /**
+     * Время выполнения запроса по умолчанию; null снимает ограничение.
+     */
+    public static void setTimeout(Duration timeout) {
+        QueryExecutor.timeout = timeout;
+    }
 
-            processResults(executor, results, searcher, documentConsumer);
+    public static Duration getTimeout() {
+        return timeout;
+    }
 
-        } catch (IOException e) {
-            String errorMessage = "Ошибка при выполнении запроса: " + e.getMessage();
-            logger.error(errorMessage, e);
-            logBuilder.append(errorMessage).append("\n");
+    /**
+     * Наибольшее число терминов, в которые раскрывается неточный запрос: раскрытие ограничивает
+     * и число проверяемых значений, и время запроса. Ответы из кеша сбрасываются, так как
+     * могли быть получены с другим ограничением.
+     */
+    public static void setMaxFuzzyExpansions(int maxExpansions) {
+        if (maxExpansions <= 0) {
+            throw new IllegalArgumentException("Число раскрытий должно быть положительным: " + maxExpansions);
+        }
+        maxFuzzyExpansions = maxExpansions;
+        cache.clear();
+    }
+
+    public static int getMaxFuzzyExpansions() {
+        return maxFuzzyExpansions;
+    }
+
+    /**
+     * Строит запрос на объекты указанного типа. Значения каждого типа индексируются
+     * в собственном поле, поэтому отдельное условие на тип не требуется.
+     */
+    public static Query buildQuery(String queryString, SymbolType type, boolean isFuzzy, boolean isCaseSensitive) {
+        return buildQuery(queryString, type, isFuzzy ? MatchMode.FUZZY : MatchMode.EXACT, isCaseSensitive);
+    }
+
+    /**
+     * Строит запрос на объекты указанного типа с заданным способом сопоставления.
+     *
+     * @throws java.util.regex.PatternSyntaxException если регулярное выражение некорректно
+     */
+    public static Query buildQuery(String queryString, SymbolType type, MatchMode mode, boolean isCaseSensitive) {
+        switch (mode) {
+            case REGEX:
+                return buildRegexQuery(queryString, type, isCaseSensitive);
+            case PREFIX:
+                return buildPrefixQuery(queryString, type, isCaseSensitive);
+            case CAMEL:
+                return buildCamelQuery(queryString, type, isCaseSensitive);
+            case TEXT:
+                return buildTextQuery(queryString, type);
+            default:
+                break;
+        }
+        String field = isCaseSensitive ? IndexSchema.contentField(type) : IndexSchema.contentLowercaseField(type);
+        String text = isCaseSensitive ? queryString : IndexSchema.normalize(queryString);
+
+        Term term = new Term(field, text);
+        return mode == MatchMode.FUZZY
+                ? new FuzzyQuery(term, FuzzyQuery.defaultMaxEdits, FuzzyQuery.defaultPrefixLength, maxFuzzyExpansions, FuzzyQuery.defaultTranspositions)
+                : new TermQuery(term);
+    }
+
+    /**
+     * Кандидаты отбираются по триграммам (для строковых констант и литералов) и проверяются
+     * регулярным выражением. Если выражение не требует триграмм, проверяются все значения типа.
+     */
+    private static Query buildRegexQuery(String regex, SymbolType type, boolean isCaseSensitive) {
+        Pattern pattern = Pattern.compile(regex, isCaseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        Query candidates = IndexSchema.hasTrigrams(type) ? RegexTrigrams.toQuery(regex, IndexSchema.trigramField(type)) : null;
+        if (candidates == null) {
+            candidates = new TermQuery(new Term(IndexSchema.TYPE, type.getName()));
+        }
+        return new RegexVerifyingQuery(candidates, pattern);
+    }
+
+    /**
+     * Для имен префикс ищется одним термином в поле префиксов. Регистр и префиксы длиннее
+     * индексируемых проверяются по хранимому значению. Для остальных типов перебираются
+     * термины значений типа.
+     */
+    private static Query buildPrefixQuery(String prefix, SymbolType type, boolean isCaseSensitive) {
+        if (prefix.endsWith("*")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        if (prefix.isEmpty()) {
+            return new ConstantScoreQuery(new TermQuery(new Term(IndexSchema.TYPE, type.getName())));
+        }
+        if (!IndexSchema.hasNameParts(type)) {
+            return isCaseSensitive
+                    ? new PrefixQuery(new Term(IndexSchema.contentField(type), prefix))
+                    : new PrefixQuery(new Term(IndexSchema.contentLowercaseField(type), IndexSchema.normalize(prefix)));
+        }
+        String normalized = IndexSchema.normalize(prefix);
+        boolean truncated = normalized.codePointCount(0, normalized.length()) > IndexSchema.MAX_PREFIX;
+        if (truncated) {
+            normalized = normalized.substring(0, normalized.offsetByCodePoints(0, IndexSchema.MAX_PREFIX));
         }
+        Query candidates = new TermQuery(new Term(IndexSchema.prefixField(type), normalized));
+        if (!isCaseSensitive && !truncated) {
+            return candidates;
+        }
+        Pattern pattern = Pattern.compile("^" + Pattern.quote(prefix), isCaseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        return new RegexVerifyingQuery(candidates, pattern);
+    }
+
+    /**
+     * Кандидаты отбираются термином из первых букв частей запроса. Если части запроса длиннее
+     * одной буквы или учитывается регистр, имена кандидатов проверяются по частям.
+     * Для типов без индекса частей имени проверяются все значения типа.
+     */
+    private static Query buildCamelQuery(String queryString, SymbolType type, boolean isCaseSensitive) {
+        List<String> humps = CamelHumps.splitQuery(queryString);
+        if (humps.isEmpty() || !IndexSchema.hasNameParts(type)) {
+            return new CamelHumpsQuery(new TermQuery(new Term(IndexSchema.TYPE, type.getName())), humps, isCaseSensitive);
+        }
+        Query candidates = new TermQuery(new Term(IndexSchema.humpField(type), CamelHumps.initials(humps)));
+        return CamelHumps.isInitialsOnly(humps, isCaseSensitive) ? candidates : new CamelHumpsQuery(candidates, humps, isCaseSensitive);
+    }
+
+    /**
+     * Разбирает полнотекстовый запрос по полю слов типа: все слова обязательны, фразы в кавычках
+     * ищутся по позициям, "a b"~n допускает n слов между ними. Регистр не учитывается.
+     *
+     * @throws IllegalArgumentException если тип не индексирует слова или запрос некорректен
+     */
+    private static Query buildTextQuery(String queryString, SymbolType type) {
+        if (!IndexSchema.hasText(type)) {
+            throw new IllegalArgumentException("Полнотекстовый поиск доступен только для строковых констант и литералов");
+        }
+        QueryParser parser = new QueryParser(IndexSchema.textField(type), textAnalyzer);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(queryString);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Некорректный запрос: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Порядок результатов: неточные и полнотекстовые запросы ранжируются по релевантности,
+     * остальные не вычисляют оценок и собираются в порядке индекса (тип, файл, строка),
+     * что позволяет завершить сбор страницы досрочно.
+     */
+    static Sort sortFor(MatchMode mode) {
+        return mode == MatchMode.FUZZY || mode == MatchMode.TEXT ? null : IndexSchema.INDEX_SORT;
+    }
+
+    /**
+     * Открывает курсор по результатам запроса. Курсор необходимо закрыть.
+     */
+    public static SearchCursor search(String queryString, SymbolType type, boolean isFuzzy, boolean isCaseSensitive, int pageSize) throws IOException {
+        return search(queryString, type, isFuzzy ? MatchMode.FUZZY : MatchMode.EXACT, isCaseSensitive, pageSize);
+    }
+
+    public static SearchCursor search(String queryString, SymbolType type, MatchMode mode, boolean isCaseSensitive, int pageSize) throws IOException {
+        return SearchCursor.open(buildQuery(queryString, type, mode, isCaseSensitive), sortFor(mode), pageSize);
+    }
+
+    /**
+     * Выполняет запрос и передает получателю страницу результатов.
+     * Совпадения, предшествующие странице, пропускаются без загрузки.
+     * Повторный запрос к тому же поколению индекса обслуживается из кеша без обращения к индексу.
+     * Запрос ограничен временем {@link #getTimeout()}.
+     *
+     * @return общее число совпадений
+     */
+    public static int execute(SearchRequest request, ResultSink sink) throws IOException {
+        return execute(request, sink, QueryBudget.unlimited().child(timeout));
+    }
+
+    /**
+     * Выполняет запрос в пределах бюджета budget. Если бюджет истек или запрос отменен,
+     * получатель получает найденное к этому моменту и вызов {@link ResultSink#incomplete(boolean)};
+     * такой ответ не кешируется.
+     *
+     * @return общее число совпадений (найденных до остановки, если запрос остановлен)
+     */
+    public static int execute(SearchRequest request, ResultSink sink, QueryBudget budget) throws IOException {
+        // Поколение читается до открытия курсора: если индекс обновится во время запроса,
+        // ответ сохранится с прежним поколением и не будет выдан.
+        IndexSearchers.checkExternalChanges();
+        return execute(request, sink, IndexSearchers.generation(), null, budget);
     }
 
+    /**
+     * Итоги пакета запросов.
+     *
+     * @param failed     число запросов, отклоненных как некорректные
+     * @param incomplete число запросов, остановленных по времени или отмене
+     */
+    public record BatchStatistics(int queries, int failed, int incomplete, long totalHits, long elapsedNanos) {
 
-    private static void processResults(ExecutorService executor, TopDocs results, IndexSearcher searcher, Consumer<Document> documentConsumer) {
-        Set<String> processedResults = ConcurrentHashMap.newKeySet();
+        public double queriesPerSecond() {
+            return queries * 1e9 / Math.max(1, elapsedNanos);
+        }
+    }
 
-        for (ScoreDoc scoreDoc : results.scoreDocs) {
-            executor.submit(() -> {
-                try {
-                    Document doc = searcher.storedFields().document(scoreDoc.doc);
-                    String content = doc.get("content");
-                    String file = doc.get("file");
-                    String line = doc.get("line");
+    /**
+     * Выполняет пакет запросов по одному состоянию индекса параллельно в общем пуле поиска.
+     * Ответы передаются получателю по мере готовности, но в порядке запросов: пока вызывающий
+     * поток передает очередной ответ, следующие запросы уже выполняются. Одновременно в работе
+     * не больше {@link #BATCH_WINDOW} запросов, поэтому в памяти держится ограниченное число ответов.
+     * Некорректный запрос (например, регулярное выражение) не прерывает пакет и учитывается в failed.
+     * Каждый запрос ограничен временем {@link #getTimeout()}.
+     */
+    public static BatchStatistics executeBatch(List<SearchRequest> requests, ResultSink sink) throws IOException {
+        return executeBatch(requests, sink, QueryBudget.unlimited());
+    }
 
-                    String logMessage = String.format("Литерал: %s, Файл: %s, Строка: %s", content, file, line);
-                    if (processedResults.add(logMessage)) {
-                        documentConsumer.accept(doc);
-                        logBuilder.append(logMessage).append("\n");
+    /**
+     * Выполняет пакет запросов, как {@link #executeBatch(List, ResultSink)}; отмена budget
+     * останавливает выполняемые запросы пакета, а оставшиеся не запускаются.
+     */
+    public static BatchStatistics executeBatch(List<SearchRequest> requests, ResultSink sink, QueryBudget budget) throws IOException {
+        Duration requestTimeout = timeout;
+        long start = System.nanoTime();
+        IndexSearchers.checkExternalChanges();
+        long generation = IndexSearchers.generation();
+        IndexSearcher searcher = IndexSearchers.acquire();
+        Iterator<SearchRequest> remaining = requests.iterator();
+        Deque<PendingAnswer> pending = new ArrayDeque<>();
+        int executed = 0;
+        int failed = 0;
+        int incomplete = 0;
+        long totalHits = 0;
+        try {
+            while ((remaining.hasNext() && !budget.shouldExit()) || !pending.isEmpty()) {
+                if (remaining.hasNext() && !budget.shouldExit() && pending.size() < BATCH_WINDOW) {
+                    SearchRequest request = remaining.next();
+                    QueryBudget requestBudget = budget.child(requestTimeout);
+                    FutureTask<CollectingResultSink> task = new FutureTask<>(() -> {
+                        CollectingResultSink answer = new CollectingResultSink();
+                        execute(request, answer, generation, searcher, requestBudget);
+                        return answer;
+                    });
+                    IndexSearchers.executor().execute(task);
+                    pending.add(new PendingAnswer(request, task));
+                    continue;
+                }
+                CollectingResultSink answer = deliverBatchAnswer(pending.poll(), sink);
+                executed++;
+                if (answer == null) {
+                    failed++;
+                } else {
+                    totalHits += answer.getTotalHits();
+                    if (!answer.isComplete()) {
+                        incomplete++;
                     }
-                } catch (IOException e) {
-                    String errorMessage = "Ошибка при обработке документа: " + e.getMessage();
-                    logger.error(errorMessage, e);
-                    logBuilder.append(errorMessage).append("\n");
                 }
-            });
+            }
+        } finally {
+            for (PendingAnswer answer : pending) {
+                answer.future().cancel(false);
+            }
+            IndexSearchers.release(searcher);
         }
+        BatchStatistics statistics = new BatchStatistics(executed, failed, incomplete, totalHits, System.nanoTime() - start);
+        logger.info("Пакет из {} запросов выполнен за {} мс ({} запросов/с), ошибок: {}, неполных ответов: {}", statistics.queries(),
+                statistics.elapsedNanos() / 1_000_000, String.format("%.1f", statistics.queriesPerSecond()), failed, incomplete);
+        return statistics;
+    }
+
+    private record PendingAnswer(SearchRequest request, FutureTask<CollectingResultSink> future) {
+    }
 
-        executor.shutdown();
+    /**
+     * Дожидается ответа на запрос пакета и передает его получателю. Если пул еще не начал
+     * выполнять запрос, вызывающий поток выполняет его сам, а не простаивает.
+     *
+     * @return переданный ответ или null, если запрос некорректен
+     */
+    private static CollectingResultSink deliverBatchAnswer(PendingAnswer pending, ResultSink sink) throws IOException {
+        CollectingResultSink answer;
         try {
-            executor.awaitTermination(1, TimeUnit.HOURS);
+            pending.future().run();
+            answer = pending.future().get();
         } catch (InterruptedException e) {
-            String errorMessage = "Ошибка при ожидании завершения обработки: " + e.getMessage();
-            logger.error(errorMessage, e);
-            logBuilder.append(errorMessage).append("\n");
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Выполнение пакета запросов прервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                logger.warn("Некорректный запрос {}: {}", pending.request(), e.getCause().getMessage());
+                return null;
+            }
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        sink.begin(pending.request(), answer.getTotalHits());
+        for (SymbolResult result : answer.getResults()) {
+            sink.accept(result);
+        }
+        if (!answer.isComplete()) {
+            sink.incomplete(answer.isCancelled());
         }
+        sink.end();
+        return answer;
     }
 
-    private static void runQuery(String queryString, String type, boolean isCaseSensitive, Consumer<Document> documentConsumer) {
-        runQueryWithConfig(queryString, type, false, isCaseSensitive, documentConsumer);
+    /**
+     * Выполняет запрос по поисковику searcher или, если он не задан, по текущему состоянию индекса.
+     */
+    private static int execute(SearchRequest request, ResultSink sink, long generation, IndexSearcher searcher,
+                               QueryBudget budget) throws IOException {
+        QueryCache.Entry cached = cache.get(request, generation);
+        if (cached != null) {
+            sink.begin(request, cached.totalHits());
+            for (SymbolResult result : cached.results()) {
+                sink.accept(result);
+            }
+            sink.end();
+            return cached.totalHits();
+        }
+
+        Query query = buildQuery(request.query(), request.type(), request.mode(), request.caseSensitive());
+        int pageSize = Math.min(request.limit(), SearchCursor.DEFAULT_PAGE_SIZE);
+        Sort sort = sortFor(request.mode());
+        try (SearchCursor cursor = searcher == null
+                ? SearchCursor.open(query, sort, pageSize, budget)
+                : SearchCursor.open(searcher, query, sort, pageSize, budget)) {
+            int count = cursor.count();
+            logger.debug("Запрос {}, найдено совпадений: {}", request, count);
+
+            sink.begin(request, count);
+            // Смещение и размер страницы считаются в совпадениях, как и общее число совпадений,
+            // поэтому страницы не перекрываются и не теряют результаты при наличии повторов.
+            // Совпадение перед страницей загружается, чтобы не повторить его первым результатом.
+            SymbolResult previous = null;
+            if (request.offset() > 0 && cursor.skip(request.offset() - 1) == request.offset() - 1 && cursor.hasNext()) {
+                previous = cursor.next();
+            }
+            List<SymbolResult> delivered = deliverResults(cursor, request.limit(), previous, sink);
+            if (cursor.isStopped()) {
+                boolean cancelled = budget.isCancelled();
+                logger.info("Запрос {} {}, результаты неполные", request, cancelled ? "отменен" : "превысил время выполнения");
+                sink.incomplete(cancelled);
+                delivered = null;
+            }
+            sink.end();
+            if (delivered != null) {
+                cache.put(request, generation, new QueryCache.Entry(count, delivered));
+            }
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
-    private static void runFuzzyQuery(String queryString, String type, boolean isCaseSensitive, Consumer<Document> documentConsumer) {
-        runQueryWithConfig(queryString, type, true, isCaseSensitive, documentConsumer);
+    /**
+     * Запрос на все объекты типа или, если тип не задан, на весь индекс.
+     */
+    public static Query typeQuery(SymbolType type) {
+        return type == null
+                ? new MatchAllDocsQuery()
+                : new ConstantScoreQuery(new TermQuery(new Term(IndexSchema.TYPE, type.getName())));
+    }
+
+    /**
+     * Число совпадений запроса без загрузки документов.
+     */
+    public static int count(Query query) throws IOException {
+        IndexSearcher searcher = IndexSearchers.acquire();
+        try {
+            return searcher.count(query);
+        } finally {
+            IndexSearchers.release(searcher);
+        }
     }
 
-    private static void findWithQuery(String queryString, String type, boolean isFuzzy, boolean isCaseSensitive, Consumer<Document> documentConsumer) {
-        if (isFuzzy) {
-            runFuzzyQuery(queryString, type, isCaseSensitive, documentConsumer);
-        } else {
-            runQuery(queryString, type, isCaseSensitive, documentConsumer);
+    /**
+     * До top значений поля с наибольшим числом совпадений запроса; считается по doc values.
+     */
+    public static List<SymbolFacets.Count> facet(Query query, SymbolFacets.Field field, int top) throws IOException {
+        IndexSearcher searcher = IndexSearchers.acquire();
+        try {
+            return SymbolFacets.count(searcher, query, field, top);
+        } finally {
+            IndexSearchers.release(searcher);
         }
     }
 
+    public static QueryCache.Statistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * Передает получателю результаты следующих limit совпадений курсора, пропуская повторы.
+     * Одинаковые объекты одного файла индексируются подряд и идут в результатах рядом,
+     * поэтому достаточно сравнения с предыдущим результатом; previous — совпадение перед страницей.
+     *
+     * @return переданные результаты для кеша или null, если их больше, чем помещается в кеш
+     */
+    private static List<SymbolResult> deliverResults(SearchCursor cursor, int limit, SymbolResult previous,
+                                                     ResultSink sink) throws IOException {
+        List<SymbolResult> delivered = new ArrayList<>();
+        for (int count = 0; count < limit && cursor.hasNext(); count++) {
+            SymbolResult result = cursor.next();
+            if (!result.equals(previous)) {
+                sink.accept(result);
+                if (delivered != null) {
+                    delivered.add(result);
+                    if (delivered.size() > cache.getMaxResults()) {
+                        delivered = null;
+                    }
+                }
+            }
+            previous = result;
+        }
+        return delivered == null ? null : List.copyOf(delivered);
+    }
+
     public static void findStringConstants(String queryString, boolean isFuzzy, boolean isCaseSensitive) {
         findWithQuery(queryString, "StringConstant", isFuzzy, isCaseSensitive);
     }
@@ -143,20 +494,15 @@ public class QueryExecutor {
         findWithQuery(literalValue, type, isFuzzy, isCaseSensitive);
     }
 
+    /**
+     * Выводит все результаты поиска в консоль.
+     */
     private static void findWithQuery(String queryString, String type, boolean isFuzzy, boolean isCaseSensitive) {
-        findWithQuery(queryString, type, isFuzzy, isCaseSensitive, doc -> {
-            String content = doc.get("content");
-            String file = doc.get("file");
-            String line = doc.get("line");
-            String logMessage;
-            logMessage = String.format("%s: %s, Файл: %s, Строка: %s", type, content, file, line);
-            if (type.equals("LocalVariable") || type.equals("Field")) {
-                String varType = doc.get("varType");
-                logMessage = String.format("%s: %s, Тип: %s, Файл: %s, Строка: %s", type, content, varType, file, line);
-            }
-            logger.info(logMessage);
-            logBuilder.append(logMessage).append("\n");
-        });
+        try {
+            execute(new SearchRequest(queryString, SymbolType.fromName(type), isFuzzy, isCaseSensitive), new ConsoleResultSink());
+        } catch (IOException e) {
+            logger.error("Ошибка при выполнении запроса: " + e.getMessage(), e);
+        }
     }
 
     public static void main(String[] args) throws IOException, InterruptedException {
@@ -0,0 +1,468 @@
+package org.example;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Преобразует регулярное выражение в запрос по триграммам, как в codesearch Р. Кокса.
+ * Запрос — необходимое условие совпадения: каждая строка, в которой регулярное выражение
+ * находит совпадение, содержит все требуемые им триграммы (в нижнем регистре).
+ * Поэтому запрос отбирает кандидатов, которые затем проверяются самим регулярным выражением.
+ * <p>
+ * Для каждого подвыражения вычисляется множество строк, которыми оно может совпасть
+ * (пока оно невелико), и условие на триграммы. Неразобранные конструкции не дают условий,
+ * и в худшем случае кандидатами оказываются все значения.
+ */
+final class RegexTrigrams {
+
+    /** Наибольший размер множества точных строк подвыражения. */
+    private static final int MAX_EXACT = 16;
+    /** Наибольшее число триграмм одной строки в запросе. */
+    private static final int MAX_TRIGRAMS = 32;
+
+    private RegexTrigrams() {
+    }
+
+    /**
+     * Условие на триграммы: ANY — без ограничений, иначе триграмма либо конъюнкция
+     * или дизъюнкция условий.
+     */
+    sealed interface Condition {
+    }
+
+    record Any() implements Condition {
+    }
+
+    record Trigram(String value) implements Condition {
+    }
+
+    record And(List<Condition> conditions) implements Condition {
+    }
+
+    record Or(List<Condition> conditions) implements Condition {
+    }
+
+    static final Condition ANY = new Any();
+
+    /**
+     * Сведения о подвыражении: множество всех строк, которыми оно совпадает (null, если неизвестно
+     * или слишком велико), и условие, выполняющееся для любого текста с совпадением.
+     */
+    private record Info(Set<String> exact, Condition match) {
+
+        static Info any() {
+            return new Info(null, ANY);
+        }
+
+        static Info empty() {
+            return new Info(Set.of(""), ANY);
+        }
+
+        /**
+         * Условие с учетом множества точных строк.
+         */
+        Condition full() {
+            return and(match, exactCondition(exact));
+        }
+    }
+
+    /**
+     * Запрос по триграммам в поле field или null, если выражение не требует ни одной триграммы.
+     */
+    static Query toQuery(String regex, String field) {
+        return toQuery(condition(regex), field);
+    }
+
+    static Condition condition(String regex) {
+        try {
+            Parser parser = new Parser(regex);
+            Info info = parser.parseAlternation();
+            if (parser.position != regex.length()) {
+                return ANY;
+            }
+            return info.full();
+        } catch (UnsupportedOperationException | IndexOutOfBoundsException | NumberFormatException e) {
+            return ANY;
+        }
+    }
+
+    private static Query toQuery(Condition condition, String field) {
+        return switch (condition) {
+            case Any any -> null;
+            case Trigram trigram -> new TermQuery(new Term(field, trigram.value()));
+            case And and -> {
+                BooleanQuery.Builder builder = new BooleanQuery.Builder();
+                for (Condition child : and.conditions()) {
+                    builder.add(toQuery(child, field), BooleanClause.Occur.FILTER);
+                }
+                yield builder.build();
+            }
+            case Or or -> {
+                BooleanQuery.Builder builder = new BooleanQuery.Builder();
+                for (Condition child : or.conditions()) {
+                    builder.add(toQuery(child, field), BooleanClause.Occur.SHOULD);
+                }
+                yield builder.setMinimumNumberShouldMatch(1).build();
+            }
+        };
+    }
+
+    /**
+     * Триграммы строки в нижнем регистре, по кодовым точкам, как их выдает анализатор индекса.
+     */
+    static List<String> trigrams(String text) {
+        int[] codePoints = text.codePoints().map(Character::toLowerCase).toArray();
+        List<String> trigrams = new ArrayList<>();
+        for (int i = 0; i + 3 <= codePoints.length; i++) {
+            trigrams.add(new String(codePoints, i, 3));
+        }
+        return trigrams;
+    }
+
+    private static Condition exactCondition(Set<String> exact) {
+        if (exact == null) {
+            return ANY;
+        }
+        List<Condition> alternatives = new ArrayList<>();
+        for (String value : exact) {
+            List<Condition> trigrams = new ArrayList<>();
+            for (String trigram : new LinkedHashSet<>(trigrams(value))) {
+                if (trigrams.size() == MAX_TRIGRAMS) {
+                    break;
+                }
+                trigrams.add(new Trigram(trigram));
+            }
+            if (trigrams.isEmpty()) {
+                // Строка короче трех символов встречается где угодно.
+                return ANY;
+            }
+            alternatives.add(trigrams.size() == 1 ? trigrams.get(0) : new And(trigrams));
+        }
+        return or(alternatives);
+    }
+
+    private static Condition and(Condition left, Condition right) {
+        if (left instanceof Any) {
+            return right;
+        }
+        if (right instanceof Any) {
+            return left;
+        }
+        List<Condition> conditions = new ArrayList<>();
+        addFlattened(conditions, left, And.class);
+        addFlattened(conditions, right, And.class);
+        return new And(conditions);
+    }
+
+    private static Condition or(List<Condition> alternatives) {
+        List<Condition> conditions = new ArrayList<>();
+        for (Condition alternative : alternatives) {
+            if (alternative instanceof Any) {
+                return ANY;
+            }
+            addFlattened(conditions, alternative, Or.class);
+        }
+        if (conditions.isEmpty()) {
+            return ANY;
+        }
+        return conditions.size() == 1 ? conditions.get(0) : new Or(conditions);
+    }
+
+    private static void addFlattened(List<Condition> target, Condition condition, Class<? extends Condition> kind) {
+        if (kind.isInstance(condition)) {
+            target.addAll(condition instanceof And and ? and.conditions() : ((Or) condition).conditions());
+        } else {
+            target.add(condition);
+        }
+    }
+
+    private static Info concat(Info left, Info right) {
+        if (left.exact() != null && right.exact() != null && left.exact().size() * right.exact().size() <= MAX_EXACT) {
+            Set<String> exact = new LinkedHashSet<>();
+            for (String prefix : left.exact()) {
+                for (String suffix : right.exact()) {
+                    exact.add(prefix + suffix);
+                }
+            }
+            return new Info(exact, and(left.match(), right.match()));
+        }
+        return new Info(null, and(left.full(), right.full()));
+    }
+
+    private static Info alternate(Info left, Info right) {
+        if (left.exact() != null && right.exact() != null && left.exact().size() + right.exact().size() <= MAX_EXACT
+                && left.match() instanceof Any && right.match() instanceof Any) {
+            Set<String> exact = new LinkedHashSet<>(left.exact());
+            exact.addAll(right.exact());
+            return new Info(exact, ANY);
+        }
+        return new Info(null, or(List.of(left.full(), right.full())));
+    }
+
+    /**
+     * Разбор синтаксиса java.util.regex. Выражение уже проверено Pattern.compile;
+     * при встрече неподдержанной конструкции выбрасывается UnsupportedOperationException.
+     */
+    private static final class Parser {
+        private final String regex;
+        private int position;
+
+        Parser(String regex) {
+            this.regex = regex;
+        }
+
+        Info parseAlternation() {
+            Info result = parseConcatenation();
+            while (position < regex.length() && regex.charAt(position) == '|') {
+                position++;
+                result = alternate(result, parseConcatenation());
+            }
+            return result;
+        }
+
+        /**
+         * Соседние подвыражения с известными строками склеиваются в одну серию. Когда серия
+         * перестает быть точной, ее условие фиксируется и начинается новая серия, поэтому
+         * литералы после .* тоже дают триграммы.
+         */
+        private Info parseConcatenation() {
+            Condition done = ANY;
+            boolean flushed = false;
+            Info run = Info.empty();
+            while (position < regex.length() && regex.charAt(position) != '|' && regex.charAt(position) != ')') {
+                Info next = parseRepetition();
+                if (run.exact() != null && next.exact() != null && run.exact().size() * next.exact().size() <= MAX_EXACT) {
+                    run = concat(run, next);
+                } else {
+                    done = and(done, run.full());
+                    flushed = true;
+                    run = next;
+                }
+            }
+            return flushed ? new Info(null, and(done, run.full())) : run;
+        }
+
+        private Info parseRepetition() {
+            Info atom = parseAtom();
+            while (position < regex.length()) {
+                char c = regex.charAt(position);
+                int min;
+                if (c == '*') {
+                    min = 0;
+                    position++;
+                } else if (c == '+') {
+                    min = 1;
+                    position++;
+                } else if (c == '?') {
+                    min = -1;
+                    position++;
+                } else if (c == '{') {
+                    int end = regex.indexOf('}', position);
+                    String bounds = regex.substring(position + 1, end);
+                    min = Integer.parseInt(bounds.split(",", -1)[0].trim());
+                    position = end + 1;
+                } else {
+                    break;
+                }
+                // Ленивые и сверхжадные кванторы совпадают с теми же строками.
+                if (position < regex.length() && (regex.charAt(position) == '?' || regex.charAt(position) == '+')) {
+                    position++;
+                }
+
+                if (min == -1) {
+                    Set<String> exact = null;
+                    if (atom.exact() != null && atom.match() instanceof Any) {
+                        exact = new LinkedHashSet<>(atom.exact());
+                        exact.add("");
+                    }
+                    atom = exact != null ? new Info(exact, ANY) : Info.any();
+                } else if (min == 0) {
+                    atom = Info.any();
+                } else {
+                    atom = new Info(null, atom.full());
+                }
+            }
+            return atom;
+        }
+
+        private Info parseAtom() {
+            char c = regex.charAt(position);
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return parseClass();
+                case '.':
+                    position++;
+                    return Info.any();
+                case '^':
+                case '$':
+                    position++;
+                    return Info.empty();
+                case '\\':
+                    return parseEscape();
+                default:
+                    int codePoint = regex.codePointAt(position);
+                    position += Character.charCount(codePoint);
+                    return literal(codePoint);
+            }
+        }
+
+        private Info parseGroup() {
+            position++;
+            boolean lookaround = false;
+            if (regex.startsWith("?", position)) {
+                position++;
+                char kind = regex.charAt(position);
+                if (kind == ':') {
+                    position++;
+                } else if (kind == '=' || kind == '!') {
+                    position++;
+                    lookaround = true;
+                } else if (kind == '<' && (regex.charAt(position + 1) == '=' || regex.charAt(position + 1) == '!')) {
+                    position += 2;
+                    lookaround = true;
+                } else if (kind == '<') {
+                    position = regex.indexOf('>', position) + 1;
+                } else {
+                    // Флаги (?i), (?s) и группы с флагами (?i:...). Регистр учитывается проверкой.
+                    while (Character.isLetter(regex.charAt(position)) || regex.charAt(position) == '-') {
+                        // В режиме комментариев пробелы и # не являются литералами.
+                        if (regex.charAt(position) == 'x') {
+                            throw new UnsupportedOperationException();
+                        }
+                        position++;
+                    }
+                    if (regex.charAt(position) == ')') {
+                        position++;
+                        return Info.empty();
+                    }
+                    if (regex.charAt(position) != ':') {
+                        throw new UnsupportedOperationException();
+                    }
+                    position++;
+                }
+            }
+            Info inner = parseAlternation();
+            if (regex.charAt(position) != ')') {
+                throw new UnsupportedOperationException();
+            }
+            position++;
+            // Проверки окружения не поглощают символы; их условия можно не учитывать.
+            return lookaround ? Info.empty() : inner;
+        }
+
+        private Info parseClass() {
+            position++;
+            boolean negated = regex.startsWith("^", position);
+            if (negated) {
+                position++;
+            }
+            Set<String> chars = new LinkedHashSet<>();
+            boolean simple = !negated;
+            boolean first = true;
+            while (first || regex.charAt(position) != ']') {
+                first = false;
+                char c = regex.charAt(position);
+                if (c == '[' || c == '&') {
+                    throw new UnsupportedOperationException();
+                }
+                int codePoint;
+                if (c == '\\') {
+                    char escaped = regex.charAt(position + 1);
+                    if (Character.isLetterOrDigit(escaped)) {
+                        throw new UnsupportedOperationException();
+                    }
+                    codePoint = escaped;
+                    position += 2;
+                } else {
+                    codePoint = regex.codePointAt(position);
+                    position += Character.charCount(codePoint);
+                }
+                if (regex.charAt(position) == '-' && regex.charAt(position + 1) != ']') {
+                    // Диапазон: точные символы известны, только если он мал.
+                    position++;
+                    int to = regex.codePointAt(position);
+                    if (to == '\\') {
+                        throw new UnsupportedOperationException();
+                    }
+                    position += Character.charCount(to);
+                    if (to - codePoint >= MAX_EXACT) {
+                        simple = false;
+                    } else {
+                        for (int i = codePoint; i <= to; i++) {
+                            chars.add(lowercase(i));
+                        }
+                    }
+                } else {
+                    chars.add(lowercase(codePoint));
+                }
+            }
+            position++;
+            if (!simple || chars.size() > MAX_EXACT / 4) {
+                return Info.any();
+            }
+            return new Info(chars, ANY);
+        }
+
+        private Info parseEscape() {
+            char c = regex.charAt(position + 1);
+            position += 2;
+            switch (c) {
+                case 'd', 'D', 'w', 'W', 's', 'S', 'h', 'H', 'v', 'V', 'X', 'R':
+                    return Info.any();
+                case 'b', 'B', 'A', 'G', 'Z', 'z':
+                    return Info.empty();
+                case 'p', 'P':
+                    if (regex.charAt(position) == '{') {
+                        position = regex.indexOf('}', position) + 1;
+                    } else {
+                        position++;
+                    }
+                    return Info.any();
+                case 'Q': {
+                    int end = regex.indexOf("\\E", position);
+                    String quoted = end < 0 ? regex.substring(position) : regex.substring(position, end);
+                    position = end < 0 ? regex.length() : end + 2;
+                    Info result = Info.empty();
+                    for (int i = 0; i < quoted.length(); ) {
+                        int codePoint = quoted.codePointAt(i);
+                        result = concat(result, literal(codePoint));
+                        i += Character.charCount(codePoint);
+                    }
+                    return result;
+                }
+                case 't':
+                    return literal('\t');
+                case 'n':
+                    return literal('\n');
+                case 'r':
+                    return literal('\r');
+                case 'f':
+                    return literal('\f');
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        // Обратные ссылки, коды символов и прочие редкие конструкции.
+                        throw new UnsupportedOperationException();
+                    }
+                    return literal(c);
+            }
+        }
+
+        private static Info literal(int codePoint) {
+            return new Info(Set.of(lowercase(codePoint)), ANY);
+        }
+
+        private static String lowercase(int codePoint) {
+            return Character.toString(Character.toLowerCase(codePoint));
+        }
+    }
+}
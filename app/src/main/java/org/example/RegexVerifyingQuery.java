@@ -0,0 +1,46 @@
+package org.example;
+
+import org.apache.lucene.search.Query;
+
+import java.util.regex.Pattern;
+
+/**
+ * Оставляет кандидатов, значение которых содержит совпадение с регулярным выражением.
+ */
+final class RegexVerifyingQuery extends ContentVerifyingQuery {
+
+    private final Pattern pattern;
+
+    RegexVerifyingQuery(Query candidates, Pattern pattern) {
+        super(candidates);
+        this.pattern = pattern;
+    }
+
+    @Override
+    protected boolean matches(String content) {
+        return pattern.matcher(content).find();
+    }
+
+    @Override
+    protected ContentVerifyingQuery withCandidates(Query candidates) {
+        return new RegexVerifyingQuery(candidates, pattern);
+    }
+
+    @Override
+    public String toString(String field) {
+        return "regex(" + candidates.toString(field) + ", /" + pattern.pattern() + "/" + pattern.flags() + ")";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return sameClassAs(other)
+                && candidates.equals(((RegexVerifyingQuery) other).candidates)
+                && pattern.pattern().equals(((RegexVerifyingQuery) other).pattern.pattern())
+                && pattern.flags() == ((RegexVerifyingQuery) other).pattern.flags();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * classHash() + candidates.hashCode()) + pattern.pattern().hashCode() + pattern.flags();
+    }
+}
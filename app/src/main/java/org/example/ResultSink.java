@@ -0,0 +1,33 @@
+package org.example;
+
+import java.io.IOException;
+
+/**
+ * Получатель результатов поиска. Для одного запроса вызывается begin, затем accept
+ * для каждого результата по порядку и в конце end; все вызовы идут из потока,
+ * выполняющего запрос. Пакет запросов передает ответы по очереди, в порядке запросов.
+ */
+public interface ResultSink {
+
+    /**
+     * Вызывается перед результатами запроса.
+     *
+     * @param totalHits общее число совпадений, без учета страницы
+     */
+    default void begin(SearchRequest request, int totalHits) throws IOException {
+    }
+
+    void accept(SymbolResult result) throws IOException;
+
+    /**
+     * Вызывается перед end, если запрос остановлен до завершения: переданные результаты
+     * и число совпадений неполные.
+     *
+     * @param cancelled запрос отменен; иначе истекло время выполнения
+     */
+    default void incomplete(boolean cancelled) throws IOException {
+    }
+
+    default void end() throws IOException {
+    }
+}
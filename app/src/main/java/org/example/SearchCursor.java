@@ -0,0 +1,310 @@
+package org.example;
+
+import org.apache.lucene.index.ExitableDirectoryReader;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Постраничный обход результатов запроса.
+ * Совпадения запрашиваются у индекса страницами через searchAfter, поэтому в памяти
+ * находится не больше одной страницы. Поля документов загружаются только при переходе
+ * к странице и только для тех совпадений, которые не были пропущены через skip.
+ * Совпадения упорядочены по релевантности или по заданной сортировке; сортировка по
+ * {@link IndexSchema#INDEX_SORT} совпадает с порядком индекса, и сбор страницы завершается досрочно.
+ * <p>
+ * Курсор с бюджетом {@link QueryBudget} останавливается, когда бюджет истек или запрос отменен:
+ * уже собранные совпадения выдаются, следующие страницы не запрашиваются, а {@link #isStopped()}
+ * сообщает, что результаты неполные.
+ * <p>
+ * Курсор держит поисковик из {@link IndexSearchers} и должен быть закрыт.
+ */
+public class SearchCursor implements Iterator<SymbolResult>, Closeable {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** Меньше этого числа документов загружается одной задачей, без распараллеливания. */
+    private static final int MIN_RESULT_CHUNK = 64;
+
+    /** Поисковик, на который курсор держит ссылку. */
+    private final IndexSearcher owner;
+    /** Поисковик, выполняющий запрос: совпадает с owner или ограничен бюджетом. */
+    private final IndexSearcher searcher;
+    private final QueryBudget budget;
+    private final Query query;
+    private final Sort sort;
+    private final int pageSize;
+    private final SymbolDocumentReader documents;
+
+    private ScoreDoc[] hits = new ScoreDoc[0];
+    private ScoreDoc after;
+    private boolean lastPage;
+    private int position;
+    private boolean stopped;
+    /** Число совпадений, посчитанное при сборе первой страницы, или -1. */
+    private int exactTotalHits = -1;
+
+    private List<SymbolResult> loaded;
+    private int loadedFrom;
+
+    private boolean closed;
+
+    private SearchCursor(IndexSearcher owner, Query query, Sort sort, int pageSize, QueryBudget budget) throws IOException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + pageSize);
+        }
+        this.owner = owner;
+        if (budget == null) {
+            this.searcher = owner;
+        } else {
+            this.searcher = expandsTerms(query) ? IndexSearchers.withExitableReader(owner, budget) : IndexSearchers.withTimeout(owner, budget);
+        }
+        this.budget = budget;
+        this.query = query;
+        this.sort = sort;
+        this.pageSize = pageSize;
+        // Номера документов у обоих поисковиков общие; поля загружаются без проверок бюджета,
+        // чтобы уже собранная страница выдавалась целиком.
+        this.documents = new SymbolDocumentReader(owner);
+    }
+
+    /**
+     * Раскрывает ли запрос термины по шаблону (неточный, префиксный запрос и т. п.).
+     */
+    private static boolean expandsTerms(Query query) {
+        boolean[] found = new boolean[1];
+        query.visit(new QueryVisitor() {
+            @Override
+            public void consumeTermsMatching(Query query, String field, Supplier<ByteRunAutomaton> automaton) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Открывает курсор по текущему состоянию индекса.
+     */
+    public static SearchCursor open(Query query, int pageSize) throws IOException {
+        return open(query, null, pageSize);
+    }
+
+    /**
+     * Открывает курсор с результатами в порядке sort или по релевантности, если sort равен null.
+     */
+    public static SearchCursor open(Query query, Sort sort, int pageSize) throws IOException {
+        return open(query, sort, pageSize, null);
+    }
+
+    /**
+     * Открывает курсор, ограниченный бюджетом budget (null — без ограничений).
+     */
+    public static SearchCursor open(Query query, Sort sort, int pageSize, QueryBudget budget) throws IOException {
+        return new SearchCursor(IndexSearchers.acquire(), query, sort, pageSize, budget);
+    }
+
+    /**
+     * Открывает курсор по уже полученному поисковику: курсор берет на него собственную ссылку,
+     * поэтому несколько курсоров пакета запросов работают с одним состоянием индекса.
+     */
+    static SearchCursor open(IndexSearcher searcher, Query query, Sort sort, int pageSize, QueryBudget budget) throws IOException {
+        searcher.getIndexReader().incRef();
+        return new SearchCursor(searcher, query, sort, pageSize, budget);
+    }
+
+    /**
+     * Точное число совпадений без загрузки документов. Если курсор остановлен бюджетом,
+     * возвращается число совпадений, найденных до остановки.
+     * <p>
+     * Для запроса с проверкой хранимого значения ({@link ContentVerifyingQuery}) отдельный подсчет
+     * проверил бы каждого кандидата второй раз, поэтому, если страницы еще не запрашивались,
+     * число совпадений считается при сборе первой страницы.
+     */
+    public int count() throws IOException {
+        if (after == null && !lastPage && !stopped && ContentVerifyingQuery.isPresentIn(query)) {
+            fetchPageIfNeeded(Integer.MAX_VALUE);
+            // Если сбор прерван до подсчета, совпадений до остановки не найдено.
+            return Math.max(exactTotalHits, 0);
+        }
+        if (exactTotalHits >= 0) {
+            return exactTotalHits;
+        }
+        try {
+            int count = searcher.count(query);
+            stopped |= searcher != owner && searcher.timedOut();
+            return count;
+        } catch (ExitableDirectoryReader.ExitingReaderException e) {
+            stopped = true;
+            return 0;
+        }
+    }
+
+    /**
+     * Был ли запрос остановлен бюджетом: результаты курсора в этом случае неполные.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Бюджет курсора или null, если курсор не ограничен.
+     */
+    public QueryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Пропускает до n совпадений, не загружая их поля. Возвращает число пропущенных.
+     */
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fetchPageIfNeeded()) {
+            int step = (int) Math.min(n - skipped, hits.length - position);
+            position += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return fetchPageIfNeeded();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public SymbolResult next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            if (loaded == null) {
+                loadRestOfPage();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return loaded.get(position++ - loadedFrom);
+    }
+
+    /**
+     * Оставшиеся результаты в виде потока. Закрытие потока закрывает курсор.
+     */
+    public Stream<SymbolResult> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            IndexSearchers.release(owner);
+        }
+    }
+
+    private boolean fetchPageIfNeeded() throws IOException {
+        return fetchPageIfNeeded(0);
+    }
+
+    /**
+     * @param totalHitsThreshold до скольких совпадений считать точно; Integer.MAX_VALUE —
+     *                           посчитать все, отказавшись от досрочного завершения сбора
+     */
+    private boolean fetchPageIfNeeded(int totalHitsThreshold) throws IOException {
+        if (position < hits.length) {
+            return true;
+        }
+        if (lastPage || closed || stopped) {
+            return false;
+        }
+        try {
+            if (totalHitsThreshold == 0) {
+                hits = sort == null
+                        ? searcher.searchAfter(after, query, pageSize).scoreDocs
+                        : searcher.searchAfter(after, query, pageSize, sort).scoreDocs;
+            } else {
+                TopDocs page = sort == null
+                        ? searcher.search(query, new TopScoreDocCollectorManager(pageSize, after, totalHitsThreshold))
+                        : searcher.search(query, new TopFieldCollectorManager(sort, pageSize, (FieldDoc) after, totalHitsThreshold));
+                hits = page.scoreDocs;
+                if (after == null && page.totalHits.relation() == TotalHits.Relation.EQUAL_TO) {
+                    exactTotalHits = (int) page.totalHits.value();
+                }
+            }
+        } catch (ExitableDirectoryReader.ExitingReaderException e) {
+            hits = new ScoreDoc[0];
+            stopped = true;
+        }
+        // Остановленный сбор возвращает лучшие из просмотренных совпадений, но не все:
+        // страница выдается, а продолжать с нее нельзя.
+        stopped |= searcher != owner && searcher.timedOut();
+        lastPage = hits.length < pageSize || stopped;
+        if (hits.length > 0) {
+            after = hits[hits.length - 1];
+        }
+        position = 0;
+        loaded = null;
+        return hits.length > 0;
+    }
+
+    /**
+     * Загружает страницу с текущей позиции частями в общем пуле поиска
+     * (вызывающий поток тоже участвует в работе); порядок совпадений сохраняется.
+     */
+    private void loadRestOfPage() throws IOException {
+        int remaining = hits.length - position;
+        int chunkSize = Math.max(MIN_RESULT_CHUNK, (remaining + IndexSearchers.THREAD_COUNT - 1) / IndexSearchers.THREAD_COUNT);
+        ScoreDoc[] page = hits;
+
+        List<Callable<List<SymbolResult>>> tasks = new ArrayList<>();
+        for (int from = position; from < page.length; from += chunkSize) {
+            int start = from;
+            int end = Math.min(page.length, from + chunkSize);
+            tasks.add(() -> {
+                List<SymbolResult> chunk = new ArrayList<>(end - start);
+                for (int i = start; i < end; i++) {
+                    chunk.add(documents.result(page[i].doc));
+                }
+                return chunk;
+            });
+        }
+
+        loaded = new ArrayList<>(remaining);
+        for (List<SymbolResult> chunk : searcher.getTaskExecutor().invokeAll(tasks)) {
+            loaded.addAll(chunk);
+        }
+        loadedFrom = position;
+    }
+}
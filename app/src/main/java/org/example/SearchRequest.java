@@ -0,0 +1,57 @@
+package org.example;
+
+/**
+ * Параметры поискового запроса.
+ *
+ * @param query         искомая строка
+ * @param type          тип искомых объектов
+ * @param mode          способ сопоставления
+ * @param caseSensitive учитывать регистр
+ * @param limit         размер страницы в совпадениях индекса, как и общее число совпадений;
+ *                      повторы одного объекта выдаются один раз
+ * @param page          номер страницы, начиная с единицы
+ */
+public record SearchRequest(String query, SymbolType type, MatchMode mode, boolean caseSensitive, int limit, int page) {
+
+    /** Без ограничения выдаются все совпадения. */
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    public SearchRequest {
+        if (limit <= 0 || page <= 0) {
+            throw new IllegalArgumentException("Размер и номер страницы должны быть положительными: " + limit + ", " + page);
+        }
+    }
+
+    /**
+     * Запрос на все совпадения.
+     */
+    public SearchRequest(String query, SymbolType type, MatchMode mode, boolean caseSensitive) {
+        this(query, type, mode, caseSensitive, NO_LIMIT, 1);
+    }
+
+    public SearchRequest(String query, SymbolType type, boolean fuzzy, boolean caseSensitive, int limit, int page) {
+        this(query, type, fuzzy ? MatchMode.FUZZY : MatchMode.EXACT, caseSensitive, limit, page);
+    }
+
+    /**
+     * Запрос на все совпадения, точные или с неточностями.
+     */
+    public SearchRequest(String query, SymbolType type, boolean fuzzy, boolean caseSensitive) {
+        this(query, type, fuzzy, caseSensitive, NO_LIMIT, 1);
+    }
+
+    public boolean fuzzy() {
+        return mode == MatchMode.FUZZY;
+    }
+
+    /**
+     * Число совпадений перед запрошенной страницей.
+     */
+    public long offset() {
+        return (long) (page - 1) * limit;
+    }
+
+    public boolean isPaged() {
+        return limit != NO_LIMIT;
+    }
+}
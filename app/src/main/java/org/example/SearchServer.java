@@ -0,0 +1,392 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервер поиска на локальном адресе: держит индекс открытым между запросами, чтобы
+ * IDE и скрипты пользовались одним прогретым индексом. Каждый HTTP-запрос выполняется
+ * в собственном виртуальном потоке; поиск идет через общие {@link IndexSearchers}
+ * и кеш {@link QueryExecutor}, индексация — через общий с консолью {@link Indexing}.
+ * <p>
+ * Точки входа:
+ * <ul>
+ *     <li>GET /find?type=method&amp;q=getName[&amp;mode=prefix&amp;cs=true&amp;limit=10&amp;page=2&amp;timeout=500] —
+ *     результаты в формате JSON Lines, общее число совпадений в заголовке X-Total-Hits;</li>
+ *     <li>POST /batch — по запросу в строке тела в том же формате, что параметры /find;
+ *     перед результатами каждого запроса строка с его заголовком, в конце — итоги пакета;</li>
+ *     <li>POST /index?path=src[&amp;full=true&amp;watch=true] с Content-Type application/json —
+ *     индексация, с watch=true индекс затем поддерживается актуальным;</li>
+ *     <li>GET /status — состояние индекса и ограничения запросов.</li>
+ * </ul>
+ * Ошибки возвращаются объектом {"error": "..."}: 400 для некорректного запроса, 403 для чужого
+ * запроса, 409, если индексация уже выполняется, 415 для /index без JSON, 500 при ошибке индекса.
+ * <p>
+ * Сервер доступен любой странице, открытой в браузере пользователя, поэтому запросы
+ * с чужим заголовком Host (подмена DNS) или Origin отклоняются с кодом 403, а /index
+ * принимается только с Content-Type application/json: такой запрос браузер не отправит
+ * на другой сайт без предварительной проверки CORS, которую сервер не проходит.
+ * <p>
+ * Запросы консольного клиента принимаются также через Unix domain socket ({@link SocketServer}).
+ */
+public final class SearchServer implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final int DEFAULT_PORT = 8765;
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String JSON_LINES = "application/x-ndjson; charset=utf-8";
+    private static final List<String> LOCAL_HOSTS = List.of("127.0.0.1", "localhost");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SocketServer socketServer;
+    private final AtomicLong requests = new AtomicLong();
+
+    private SearchServer(HttpServer server, ExecutorService executor, SocketServer socketServer) {
+        this.server = server;
+        this.executor = executor;
+        this.socketServer = socketServer;
+    }
+
+    /**
+     * Запускает сервер на порту port адреса 127.0.0.1; 0 — любой свободный порт.
+     */
+    public static SearchServer start(int port) throws IOException {
+        return start(port, (Path) null);
+    }
+
+    /**
+     * Запускает сервер, который кроме HTTP принимает запросы консольного клиента
+     * через Unix domain socket по пути socket (null — без сокета).
+     *
+     * @throws IOException если порт занят или по пути socket уже отвечает другой сервер
+     */
+    public static SearchServer start(int port, Path socket) throws IOException {
+        SocketServer socketServer = socket == null ? null : SocketServer.start(socket);
+        try {
+            return startHttp(port, socketServer);
+        } catch (IOException e) {
+            if (socketServer != null) {
+                socketServer.close();
+            }
+            throw e;
+        }
+    }
+
+    private static SearchServer startHttp(int port, SocketServer socketServer) throws IOException {
+        // Заголовки и тело ответа отправляются отдельно; без TCP_NODELAY тело ждет подтверждения
+        // заголовков (алгоритм Нейгла и отложенное подтверждение) и каждый ответ задерживается на ~40 мс.
+        // Настройка читается при первом создании HttpServer в процессе.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        httpServer.setExecutor(executor);
+        SearchServer searchServer = new SearchServer(httpServer, executor, socketServer);
+        httpServer.createContext("/find", exchange -> searchServer.handle(exchange, "GET", searchServer::find));
+        httpServer.createContext("/batch", exchange -> searchServer.handle(exchange, "POST", searchServer::batch));
+        httpServer.createContext("/index", exchange -> searchServer.handle(exchange, "POST", searchServer::index));
+        httpServer.createContext("/status", exchange -> searchServer.handle(exchange, "GET", searchServer::status));
+        httpServer.start();
+        logger.info("Сервер поиска запущен: {}", searchServer.getUri());
+        return searchServer;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public URI getUri() {
+        return URI.create("http://127.0.0.1:" + getPort());
+    }
+
+    /**
+     * Останавливает прием запросов, дожидается выполняемых и прекращает наблюдение за изменениями.
+     */
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        executor.close();
+        if (socketServer != null) {
+            socketServer.close();
+        }
+        Indexing.stopWatcher();
+        logger.info("Сервер поиска остановлен, обработано запросов: {}", requests.get());
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Проверяет метод запроса и превращает исключения обработчика в ответы с ошибкой.
+     */
+    private void handle(HttpExchange exchange, String method, Handler handler) {
+        requests.incrementAndGet();
+        try {
+            if (!isLocalRequest(exchange)) {
+                sendError(exchange, 403, "Запрос с другого сайта отклонен");
+                return;
+            }
+            if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+                return;
+            }
+            handler.handle(exchange);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Ошибка при обработке запроса {}: {}", exchange.getRequestURI(), e.getMessage(), e);
+            sendError(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Запрос адресован этому серверу по локальному имени и, если пришел из браузера,
+     * отправлен страницей самого сервера.
+     */
+    private boolean isLocalRequest(HttpExchange exchange) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null || !isLocalAuthority(host)) {
+            return false;
+        }
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        return origin == null || origin.regionMatches(true, 0, "http://", 0, 7) && isLocalAuthority(origin.substring(7));
+    }
+
+    private boolean isLocalAuthority(String authority) {
+        for (String host : LOCAL_HOSTS) {
+            if (authority.equalsIgnoreCase(host + ":" + getPort())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void find(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+        SearchRequest request = parseRequest(parameters);
+        QueryBudget budget = QueryBudget.unlimited().child(parseTimeout(parameters));
+        // Некорректный запрос обнаруживается до отправки заголовков и возвращается как 400.
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        QueryExecutor.execute(request, new JsonLinesResultSink(out) {
+            @Override
+            public synchronized void begin(SearchRequest request, int totalHits) throws IOException {
+                exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+                exchange.getResponseHeaders().set("X-Total-Hits", Integer.toString(totalHits));
+                exchange.sendResponseHeaders(200, 0);
+            }
+        }, budget);
+        out.close();
+    }
+
+    private void batch(HttpExchange exchange) throws IOException {
+        List<SearchRequest> batch = new ArrayList<>();
+        try (BufferedReader body = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            for (int number = 1; (line = body.readLine()) != null; number++) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    batch.add(parseRequest(parseParameters(line)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Строка " + number + ": " + e.getMessage(), e);
+                }
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            QueryExecutor.BatchStatistics statistics = QueryExecutor.executeBatch(batch, new JsonLinesResultSink(out, true));
+            out.write("{\"queries\":" + statistics.queries() + ",\"failed\":" + statistics.failed()
+                    + ",\"incomplete\":" + statistics.incomplete() + ",\"totalHits\":" + statistics.totalHits()
+                    + ",\"elapsedMs\":" + statistics.elapsedNanos() / 1_000_000 + "}\n");
+        }
+    }
+
+    private void index(HttpExchange exchange) throws IOException {
+        // Простой POST с формой можно отправить с любой страницы, а запрос с JSON — нет.
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.toLowerCase().startsWith("application/json")) {
+            sendError(exchange, 415, "Запрос /index должен иметь Content-Type application/json");
+            return;
+        }
+        Map<String, String> parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+        String path = parameters.get("path");
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Укажите путь для индексации: /index?path=<path>");
+        }
+        IndexOptions options = new IndexOptions();
+        options.setFullRebuild(Boolean.parseBoolean(parameters.get("full")));
+        options.setExcludeGlobs(SourceDiscovery.DEFAULT_EXCLUDES);
+        boolean watch = Boolean.parseBoolean(parameters.get("watch"));
+
+        long start = System.nanoTime();
+        try {
+            if (!Indexing.tryIndex(path, options, watch)) {
+                sendError(exchange, 409, "Индексация уже выполняется");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Индексация прервана", e);
+        }
+        sendJson(exchange, 200, "{\"indexed\":" + quote(path) + ",\"watching\":" + watch
+                + ",\"elapsedMs\":" + (System.nanoTime() - start) / 1_000_000 + "}");
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        Integer documents = null;
+        try {
+            IndexSearcher searcher = IndexSearchers.acquire();
+            try {
+                documents = searcher.getIndexReader().numDocs();
+            } finally {
+                IndexSearchers.release(searcher);
+            }
+        } catch (IOException e) {
+            // Индекс еще не создан.
+        }
+        Path watched = Indexing.getWatchedRoot();
+        Duration timeout = QueryExecutor.getTimeout();
+        QueryCache.Statistics cache = QueryExecutor.getCacheStatistics();
+        sendJson(exchange, 200, "{\"generation\":" + IndexSearchers.generation()
+                + ",\"documents\":" + documents
+                + ",\"indexing\":" + Indexing.isRunning()
+                + ",\"watching\":" + (watched == null ? "null" : quote(watched.toString()))
+                + ",\"timeoutMs\":" + (timeout == null ? "null" : timeout.toMillis())
+                + ",\"maxFuzzyExpansions\":" + QueryExecutor.getMaxFuzzyExpansions()
+                + ",\"cacheHits\":" + cache.hits() + ",\"cacheMisses\":" + cache.misses()
+                + ",\"requests\":" + requests.get() + "}");
+    }
+
+    /**
+     * Разбирает параметры запроса: type и q обязательны, mode — способ сопоставления
+     * (exact по умолчанию), cs — учет регистра, limit и page — страница результатов.
+     *
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    static SearchRequest parseRequest(Map<String, String> parameters) {
+        String typeName = parameters.get("type");
+        String query = parameters.get("q");
+        if (typeName == null || query == null) {
+            throw new IllegalArgumentException("Укажите тип и запрос: type=<type>&q=<query>");
+        }
+        SymbolType type = CodeSearch.parseType(typeName);
+        if (type == null) {
+            throw new IllegalArgumentException("Неизвестный тип для поиска: " + typeName);
+        }
+        MatchMode mode = MatchMode.EXACT;
+        if (parameters.containsKey("mode")) {
+            try {
+                mode = MatchMode.valueOf(parameters.get("mode").toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный способ сопоставления: " + parameters.get("mode"));
+            }
+        }
+        return new SearchRequest(query, type, mode, Boolean.parseBoolean(parameters.get("cs")),
+                parsePositive(parameters, "limit", SearchRequest.NO_LIMIT), parsePositive(parameters, "page", 1));
+    }
+
+    private static Duration parseTimeout(Map<String, String> parameters) {
+        return parameters.containsKey("timeout")
+                ? Duration.ofMillis(parsePositive(parameters, "timeout", 0))
+                : QueryExecutor.getTimeout();
+    }
+
+    private static int parsePositive(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Сообщение ниже.
+        }
+        throw new IllegalArgumentException("Значение " + name + " должно быть положительным числом: " + value);
+    }
+
+    /**
+     * Разбирает строку параметров вида a=1&amp;b=2 с URL-кодированием.
+     */
+    static Map<String, String> parseParameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            sendJson(exchange, status, "{\"error\":" + quote(message) + "}");
+        } catch (IOException e) {
+            // Ответ уже начат или клиент отключился: сообщить об ошибке нельзя.
+            logger.debug("Не удалось отправить ошибку {}: {}", status, e.getMessage());
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String quote(String value) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonLinesResultSink.writeString(out, value);
+        return out.toString();
+    }
+}
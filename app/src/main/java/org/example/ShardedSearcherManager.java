@@ -0,0 +1,127 @@
+package org.example;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Аналог SearcherManager для индекса из нескольких шардов.
+ * Держит открытый DirectoryReader каждого шарда; при обновлении заново открываются
+ * только изменившиеся шарды, а поиск идет по MultiReader над ними.
+ * Для индекса из одного шарда поиск идет прямо по его DirectoryReader.
+ * Поисковики получают общий пул, чтобы обходить группы сегментов параллельно.
+ */
+class ShardedSearcherManager extends ReferenceManager<IndexSearcher> {
+
+    private final Executor executor;
+    private final List<MMapDirectory> directories = new ArrayList<>();
+    private final DirectoryReader[] shardReaders;
+
+    ShardedSearcherManager(Path root, Executor executor) throws IOException {
+        this.executor = executor;
+        int shardCount = IndexShards.existingShardCount(root);
+        shardReaders = new DirectoryReader[shardCount];
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                MMapDirectory directory = new MMapDirectory(IndexShards.shardPath(root, shard, shardCount));
+                directories.add(directory);
+                shardReaders[shard] = DirectoryReader.open(directory);
+            }
+            current = newSearcher();
+        } catch (IOException e) {
+            IOUtils.closeWhileHandlingException(shardReaders);
+            IOUtils.closeWhileHandlingException(directories);
+            throw e;
+        }
+    }
+
+    /**
+     * Новый поисковик получает собственную ссылку на читатели шардов:
+     * MultiReader без закрытия вложенных читателей увеличивает их счетчики сам.
+     */
+    private IndexSearcher newSearcher() throws IOException {
+        IndexReader reader;
+        if (shardReaders.length == 1) {
+            reader = shardReaders[0];
+            reader.incRef();
+        } else {
+            reader = new MultiReader(shardReaders.clone(), false);
+        }
+        return new IndexSearcher(reader, executor);
+    }
+
+    /**
+     * Новые читатели принимаются, только если открылись все изменившиеся шарды:
+     * при ошибке уже открытые закрываются, и менеджер остается с прежними.
+     */
+    @Override
+    protected IndexSearcher refreshIfNeeded(IndexSearcher referenceToRefresh) throws IOException {
+        DirectoryReader[] opened = new DirectoryReader[shardReaders.length];
+        boolean changed = false;
+        boolean success = false;
+        try {
+            for (int shard = 0; shard < shardReaders.length; shard++) {
+                opened[shard] = DirectoryReader.openIfChanged(shardReaders[shard]);
+                changed |= opened[shard] != null;
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                IOUtils.closeWhileHandlingException(opened);
+            }
+        }
+        if (!changed) {
+            return null;
+        }
+
+        List<DirectoryReader> replaced = new ArrayList<>();
+        for (int shard = 0; shard < shardReaders.length; shard++) {
+            if (opened[shard] != null) {
+                replaced.add(shardReaders[shard]);
+                shardReaders[shard] = opened[shard];
+            }
+        }
+        IndexSearcher searcher = newSearcher();
+        // Прежние читатели остаются открытыми, пока их использует выданный ранее поисковик.
+        for (DirectoryReader reader : replaced) {
+            reader.decRef();
+        }
+        return searcher;
+    }
+
+    @Override
+    protected void decRef(IndexSearcher reference) throws IOException {
+        reference.getIndexReader().decRef();
+    }
+
+    @Override
+    protected boolean tryIncRef(IndexSearcher reference) {
+        return reference.getIndexReader().tryIncRef();
+    }
+
+    @Override
+    protected int getRefCount(IndexSearcher reference) {
+        return reference.getIndexReader().getRefCount();
+    }
+
+    @Override
+    protected void afterClose() throws IOException {
+        List<Closeable> resources = new ArrayList<>();
+        for (DirectoryReader reader : shardReaders) {
+            resources.add(reader::decRef);
+        }
+        resources.addAll(directories);
+        IOUtils.close(resources);
+    }
+}
@@ -0,0 +1,137 @@
+package org.example;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Двоичный протокол между консольным клиентом и сервером поиска через Unix domain socket.
+ * Одно соединение — один запрос.
+ * <p>
+ * Запрос: MAGIC, затем строка запроса, номер типа, номер способа сопоставления, учет регистра,
+ * размер и номер страницы и время выполнения в миллисекундах (0 — по умолчанию сервера).
+ * Ответ — последовательность кадров, каждый начинается с байта вида:
+ * BEGIN с общим числом совпадений, RESULT на каждый результат, INCOMPLETE, если запрос остановлен,
+ * и END. Некорректный запрос вместо них получает ERROR с сообщением, а ошибка выполнения
+ * на сервере, например отсутствие индекса, — FAILURE с сообщением; ошибка может прийти и после
+ * части результатов.
+ * <p>
+ * Строки записываются длиной в байтах и UTF-8 (длина -1 — null); в отличие от writeUTF
+ * длина строки не ограничена 64 КБ. Класс не зависит от Lucene, чтобы клиент запускался быстро.
+ */
+final class SocketProtocol {
+
+    /** Сокет создается рядом с каталогом индекса: полная перестройка удаляет каталог целиком. */
+    static final Path DEFAULT_SOCKET = Paths.get(".codesearch.sock");
+
+    /** "CS" и номер версии протокола. */
+    static final int MAGIC = 0x43530001;
+
+    static final byte BEGIN = 1;
+    static final byte RESULT = 2;
+    static final byte INCOMPLETE = 3;
+    static final byte END = 4;
+    static final byte ERROR = 5;
+    static final byte FAILURE = 6;
+
+    /** Наибольшая длина строки в байтах: длина из некорректного кадра не должна исчерпать память сервера. */
+    static final int MAX_STRING_BYTES = 8 * 1024 * 1024;
+
+    private SocketProtocol() {
+    }
+
+    /**
+     * Запрос клиента.
+     *
+     * @param timeoutMillis время выполнения или 0, чтобы использовать время сервера по умолчанию
+     */
+    record Request(SearchRequest search, long timeoutMillis) {
+    }
+
+    static void writeRequest(DataOutput out, Request request) throws IOException {
+        SearchRequest search = request.search();
+        out.writeInt(MAGIC);
+        writeString(out, search.query());
+        out.writeByte(search.type().ordinal());
+        out.writeByte(search.mode().ordinal());
+        out.writeBoolean(search.caseSensitive());
+        out.writeInt(search.limit());
+        out.writeInt(search.page());
+        out.writeLong(request.timeoutMillis());
+    }
+
+    /**
+     * Читает запрос, записанный {@link #writeRequest}.
+     *
+     * @throws IllegalArgumentException если версия протокола или значения запроса некорректны
+     */
+    static Request readRequest(DataInput in) throws IOException {
+        int magic = in.readInt();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Неподдерживаемая версия протокола: " + Integer.toHexString(magic));
+        }
+        String query = readString(in);
+        int type = in.readUnsignedByte();
+        int mode = in.readUnsignedByte();
+        boolean caseSensitive = in.readBoolean();
+        int limit = in.readInt();
+        int page = in.readInt();
+        long timeoutMillis = in.readLong();
+        if (query == null || type >= SymbolType.values().length || mode >= MatchMode.values().length || timeoutMillis < 0) {
+            throw new IllegalArgumentException("Некорректный запрос");
+        }
+        return new Request(new SearchRequest(query, SymbolType.fromOrdinal(type), MatchMode.values()[mode], caseSensitive, limit, page),
+                timeoutMillis);
+    }
+
+    static void writeResult(DataOutput out, SymbolResult result) throws IOException {
+        out.writeByte(RESULT);
+        out.writeByte(result.type().ordinal());
+        writeString(out, result.content());
+        writeString(out, result.file());
+        out.writeInt(result.line());
+        writeString(out, result.varType());
+    }
+
+    /**
+     * Читает результат кадра RESULT после байта вида.
+     */
+    static SymbolResult readResult(DataInput in) throws IOException {
+        SymbolType type = SymbolType.fromOrdinal(in.readUnsignedByte());
+        String content = readString(in);
+        String file = readString(in);
+        int line = in.readInt();
+        return new SymbolResult(type, content, file, line, readString(in));
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Читает строку, записанную {@link #writeString}.
+     *
+     * @throws IllegalArgumentException если длина строки больше {@link #MAX_STRING_BYTES}
+     */
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Слишком длинная строка в запросе: " + length + " байт");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
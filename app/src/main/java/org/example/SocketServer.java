@@ -0,0 +1,211 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Прием запросов консольного клиента через Unix domain socket по протоколу {@link SocketProtocol}.
+ * Каждое соединение обслуживается в собственном виртуальном потоке; поиск идет через общие
+ * {@link IndexSearchers} и кеш {@link QueryExecutor}, как у {@link SearchServer}.
+ * Если клиент отключился, запрос отменяется при следующей записи ответа.
+ */
+final class SocketServer implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final ServerSocketChannel channel;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread acceptor;
+
+    private SocketServer(Path path, ServerSocketChannel channel) {
+        this.path = path;
+        this.channel = channel;
+        this.acceptor = Thread.ofPlatform().daemon().name("socket-accept").unstarted(this::acceptConnections);
+    }
+
+    /**
+     * Начинает прием соединений по пути path. Файл, оставшийся от завершенного сервера, удаляется.
+     *
+     * @throws IOException если по этому пути уже отвечает другой сервер
+     */
+    static SocketServer start(Path path) throws IOException {
+        if (Files.exists(path)) {
+            if (isListening(path)) {
+                throw new IOException("Сервер поиска уже запущен: " + path);
+            }
+            Files.deleteIfExists(path);
+        }
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(path));
+        SocketServer server = new SocketServer(path, channel);
+        server.acceptor.start();
+        logger.info("Прием запросов через сокет: {}", path.toAbsolutePath());
+        return server;
+    }
+
+    private static boolean isListening(Path path) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(path)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    private void acceptConnections() {
+        while (channel.isOpen()) {
+            try {
+                SocketChannel connection = channel.accept();
+                executor.execute(() -> serve(connection));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("Ошибка при приеме соединения: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        try (connection) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(connection), BUFFER_SIZE));
+            SocketProtocol.Request request;
+            try {
+                request = SocketProtocol.readRequest(in);
+            } catch (IllegalArgumentException e) {
+                writeError(out, SocketProtocol.ERROR, e);
+                return;
+            }
+            Duration timeout = request.timeoutMillis() > 0 ? Duration.ofMillis(request.timeoutMillis()) : QueryExecutor.getTimeout();
+            QueryBudget budget = QueryBudget.unlimited().child(timeout);
+            FrameSink sink = new FrameSink(out, budget);
+            try {
+                QueryExecutor.execute(request.search(), sink, budget);
+            } catch (IllegalArgumentException e) {
+                writeError(out, SocketProtocol.ERROR, e);
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (sink.isDisconnected()) {
+                    throw e;
+                }
+                // Ошибка выполнения, например индекс еще не создан: клиент получает сообщение, а не обрыв соединения.
+                logger.error("Ошибка при выполнении запроса {}: {}", request.search(), e.getMessage(), e);
+                writeError(out, SocketProtocol.FAILURE, e);
+                return;
+            }
+            out.flush();
+        } catch (IOException e) {
+            logger.debug("Соединение с клиентом прервано: {}", e.getMessage());
+        }
+    }
+
+    private static void writeError(DataOutputStream out, byte kind, Exception error) throws IOException {
+        out.writeByte(kind);
+        SocketProtocol.writeString(out, error.getMessage() != null ? error.getMessage() : error.toString());
+        out.flush();
+    }
+
+    /**
+     * Записывает ответ кадрами протокола. Ошибка записи означает, что клиент отключился:
+     * бюджет отменяется, чтобы запрос не продолжал работу впустую.
+     */
+    private static final class FrameSink implements ResultSink {
+        private final DataOutputStream out;
+        private final QueryBudget budget;
+        private boolean disconnected;
+
+        FrameSink(DataOutputStream out, QueryBudget budget) {
+            this.out = out;
+            this.budget = budget;
+        }
+
+        /**
+         * Запись ответа не удалась: отправить клиенту сообщение об ошибке уже нельзя.
+         */
+        boolean isDisconnected() {
+            return disconnected;
+        }
+
+        @Override
+        public void begin(SearchRequest request, int totalHits) throws IOException {
+            try {
+                out.writeByte(SocketProtocol.BEGIN);
+                out.writeInt(totalHits);
+            } catch (IOException e) {
+                disconnect();
+                throw e;
+            }
+        }
+
+        @Override
+        public void accept(SymbolResult result) throws IOException {
+            try {
+                SocketProtocol.writeResult(out, result);
+            } catch (IOException e) {
+                disconnect();
+                throw e;
+            }
+        }
+
+        @Override
+        public void incomplete(boolean cancelled) throws IOException {
+            try {
+                out.writeByte(SocketProtocol.INCOMPLETE);
+                out.writeBoolean(cancelled);
+            } catch (IOException e) {
+                disconnect();
+                throw e;
+            }
+        }
+
+        @Override
+        public void end() throws IOException {
+            try {
+                out.writeByte(SocketProtocol.END);
+            } catch (IOException e) {
+                disconnect();
+                throw e;
+            }
+        }
+
+        private void disconnect() {
+            disconnected = true;
+            budget.cancel();
+        }
+    }
+
+    /**
+     * Прекращает прием соединений, дожидается обслуживаемых и удаляет файл сокета.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        executor.close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Обход дерева исходников с фильтрацией по glob-шаблонам.
+ * Шаблоны сопоставляются с путем относительно корня обхода. Исключенные каталоги
+ * пропускаются целиком прямо во время обхода, их содержимое не читается.
+ */
+public class SourceDiscovery {
+
+    public static final List<String> DEFAULT_INCLUDES = List.of("**.java");
+    public static final List<String> DEFAULT_EXCLUDES = List.of(
+            "target", "**/target", "build", "**/build", ".git", "**/.git");
+
+    private final Path root;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+
+    public SourceDiscovery(Path root, List<String> includeGlobs, List<String> excludeGlobs) {
+        this.root = root;
+        this.includes = includeGlobs.stream().map(glob -> root.getFileSystem().getPathMatcher("glob:" + glob)).toList();
+        this.excludes = excludeGlobs.stream().map(glob -> root.getFileSystem().getPathMatcher("glob:" + glob)).toList();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Передает найденные файлы получателю по мере обхода.
+     * Если получатель блокируется (например, очередь заполнена), обход приостанавливается вместе с ним.
+     */
+    public void walk(FileSink sink) throws IOException, InterruptedException {
+        walk(root, sink);
+    }
+
+    /**
+     * Обходит поддерево, начиная с каталога start внутри корня, с теми же фильтрами.
+     */
+    public void walk(Path start, FileSink sink) throws IOException, InterruptedException {
+        InterruptedException[] interrupted = new InterruptedException[1];
+
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return isExcludedDirectory(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile() || !isSourceFile(file)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                try {
+                    sink.accept(file);
+                    return FileVisitResult.CONTINUE;
+                } catch (InterruptedException e) {
+                    interrupted[0] = e;
+                    return FileVisitResult.TERMINATE;
+                }
+            }
+        });
+
+        if (interrupted[0] != null) {
+            throw interrupted[0];
+        }
+    }
+
+    public boolean isExcludedDirectory(Path dir) {
+        return !dir.equals(root) && matches(excludes, root.relativize(dir));
+    }
+
+    public boolean isSourceFile(Path file) {
+        Path relative = root.relativize(file);
+        return matches(includes, relative) && !matches(excludes, relative);
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface FileSink {
+        void accept(Path file) throws InterruptedException;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Слушатель разбора для потокового режима (setBuildParseTree(false)).
+ * Завершенные правила прикрепляются к родителю, пока не закончится объявление или оператор
+ * (точка сброса). Тогда готовое поддерево обходится экстракторами и сразу отсоединяется,
+ * так что в памяти одновременно находятся только незавершенные правила.
+ */
+class StreamingParseListener implements ParseTreeListener {
+
+    private final ParseTreeListener extractors;
+    private final ParseTreeWalker walker = new ParseTreeWalker();
+
+    StreamingParseListener(ParseTreeListener extractors) {
+        this.extractors = extractors;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        // В леворекурсивных правилах (выражения) парсер уже завершил прежний контекст
+        // и затем делает его первым потомком нового: переносим его к новому родителю.
+        ParserRuleContext parent = ctx.getParent();
+        if (parent != null && parent.getChildCount() > 0
+                && parent.getChild(parent.getChildCount() - 1) instanceof ParserRuleContext previous
+                && previous.getParent() == ctx) {
+            parent.removeLastChild();
+            ctx.addChild(previous);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        complete(ctx);
+    }
+
+    private void complete(ParserRuleContext ctx) {
+        ParserRuleContext parent = ctx.getParent();
+        if (parent != null) {
+            parent.addChild(ctx);
+        }
+
+        if (isFlushPoint(ctx)) {
+            walker.walk(extractors, ctx);
+            if (parent != null) {
+                parent.removeLastChild();
+            }
+            if (ctx.children != null) {
+                ctx.children.clear();
+            }
+        }
+    }
+
+    private static boolean isFlushPoint(ParserRuleContext ctx) {
+        return ctx instanceof JavaParser.BlockStatementContext
+                || ctx instanceof JavaParser.ClassBodyDeclarationContext
+                || ctx instanceof JavaParser.InterfaceBodyDeclarationContext
+                || ctx instanceof JavaParser.TypeDeclarationContext
+                || ctx instanceof JavaParser.CompilationUnitContext;
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Собирает найденный документ по схеме {@link IndexSchema}: хранимые поля дополняются
+ * путем файла, строкой и типом из doc values. Потокобезопасен.
+ */
+class SymbolDocumentReader {
+
+    private final IndexSearcher searcher;
+    private final List<LeafReaderContext> leaves;
+
+    SymbolDocumentReader(IndexSearcher searcher) {
+        this.searcher = searcher;
+        this.leaves = searcher.getIndexReader().leaves();
+    }
+
+    /**
+     * Возвращает документ с полями content, file, line, type и, для полей и переменных, varType.
+     */
+    Document document(int docId) throws IOException {
+        Document doc = searcher.storedFields().document(docId);
+
+        // Итераторы doc values однонаправленные и непотокобезопасные, поэтому создаются на каждый документ.
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+        int leafDocId = docId - leaf.docBase;
+
+        SortedDocValues files = DocValues.getSorted(leaf.reader(), IndexSchema.FILE);
+        if (!files.advanceExact(leafDocId)) {
+            throw missingValue(IndexSchema.FILE, leafDocId);
+        }
+        long line = readNumeric(leaf, IndexSchema.LINE, leafDocId);
+        long type = readNumeric(leaf, IndexSchema.TYPE, leafDocId);
+
+        doc.add(new StoredField(IndexSchema.FILE, files.lookupOrd(files.ordValue()).utf8ToString()));
+        doc.add(new StoredField(IndexSchema.LINE, String.valueOf(line)));
+        doc.add(new StoredField(IndexSchema.TYPE, SymbolType.fromOrdinal((int) type).getName()));
+        return doc;
+    }
+
+    /**
+     * Возвращает найденный объект в типизированном виде.
+     */
+    SymbolResult result(int docId) throws IOException {
+        Document doc = document(docId);
+        return new SymbolResult(SymbolType.fromName(doc.get(IndexSchema.TYPE)), doc.get(IndexSchema.CONTENT),
+                doc.get(IndexSchema.FILE), Integer.parseInt(doc.get(IndexSchema.LINE)), doc.get(IndexSchema.VAR_TYPE));
+    }
+
+    private static long readNumeric(LeafReaderContext leaf, String field, int leafDocId) throws IOException {
+        NumericDocValues values = DocValues.getNumeric(leaf.reader(), field);
+        if (!values.advanceExact(leafDocId)) {
+            throw missingValue(field, leafDocId);
+        }
+        return values.longValue();
+    }
+
+    private static IOException missingValue(String field, int leafDocId) {
+        return new IOException("У документа " + leafDocId + " нет значения поля " + field);
+    }
+}
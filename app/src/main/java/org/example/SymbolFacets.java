@@ -0,0 +1,192 @@
+package org.example;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Подсчет совпадений по значениям поля: типу, файлу, каталогу файла или типу переменной.
+ * Счет ведется в коллекторе по порядковым номерам doc values сегмента; хранимые поля
+ * не читаются, а в строки превращаются только встретившиеся номера в конце сегмента.
+ */
+public final class SymbolFacets {
+
+    /**
+     * Поле, по значениям которого группируются совпадения.
+     */
+    public enum Field {
+        TYPE("type"),
+        FILE("file"),
+        /** Каталог файла, то есть пакет или модуль. */
+        DIRECTORY("directory"),
+        VAR_TYPE("vartype");
+
+        private final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Поле по имени без учета регистра или null, если такого поля нет.
+         */
+        public static Field fromName(String name) {
+            for (Field field : values()) {
+                if (field.name.equalsIgnoreCase(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Значение поля и число совпадений с ним.
+     */
+    public record Count(String value, long count) {
+    }
+
+    private static final Comparator<Count> BY_COUNT = Comparator.comparingLong(Count::count).reversed()
+            .thenComparing(Count::value);
+
+    private SymbolFacets() {
+    }
+
+    /**
+     * Возвращает до top значений поля с наибольшим числом совпадений запроса.
+     */
+    public static List<Count> count(IndexSearcher searcher, Query query, Field field, int top) throws IOException {
+        Map<String, Long> counts = searcher.search(query, new CollectorManager<FacetCollector, Map<String, Long>>() {
+            @Override
+            public FacetCollector newCollector() {
+                return new FacetCollector(field);
+            }
+
+            @Override
+            public Map<String, Long> reduce(Collection<FacetCollector> collectors) {
+                Map<String, Long> merged = new HashMap<>();
+                for (FacetCollector collector : collectors) {
+                    collector.counts.forEach((value, count) -> merged.merge(value, count, Long::sum));
+                }
+                return merged;
+            }
+        });
+        return counts.entrySet().stream()
+                .map(entry -> new Count(entry.getKey(), entry.getValue()))
+                .sorted(BY_COUNT)
+                .limit(top)
+                .toList();
+    }
+
+    private static class FacetCollector implements Collector {
+
+        private final Field field;
+        private final Map<String, Long> counts = new HashMap<>();
+
+        FacetCollector(Field field) {
+            this.field = field;
+        }
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            return field == Field.TYPE
+                    ? new TypeLeafCollector(DocValues.getNumeric(context.reader(), IndexSchema.TYPE))
+                    : new OrdinalLeafCollector(DocValues.getSorted(context.reader(),
+                    field == Field.VAR_TYPE ? IndexSchema.VAR_TYPE : IndexSchema.FILE));
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        private void add(String value, long count) {
+            counts.merge(value, count, Long::sum);
+        }
+
+        private class TypeLeafCollector implements LeafCollector {
+            private final NumericDocValues types;
+            private final long[] typeCounts = new long[SymbolType.values().length];
+
+            TypeLeafCollector(NumericDocValues types) {
+                this.types = types;
+            }
+
+            @Override
+            public void setScorer(Scorable scorer) {
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                if (types.advanceExact(doc)) {
+                    typeCounts[(int) types.longValue()]++;
+                }
+            }
+
+            @Override
+            public void finish() {
+                for (int ordinal = 0; ordinal < typeCounts.length; ordinal++) {
+                    if (typeCounts[ordinal] > 0) {
+                        add(SymbolType.fromOrdinal(ordinal).getName(), typeCounts[ordinal]);
+                    }
+                }
+            }
+        }
+
+        private class OrdinalLeafCollector implements LeafCollector {
+            private final SortedDocValues values;
+            private final long[] ordinalCounts;
+
+            OrdinalLeafCollector(SortedDocValues values) {
+                this.values = values;
+                this.ordinalCounts = new long[values.getValueCount()];
+            }
+
+            @Override
+            public void setScorer(Scorable scorer) {
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                if (values.advanceExact(doc)) {
+                    ordinalCounts[values.ordValue()]++;
+                }
+            }
+
+            @Override
+            public void finish() throws IOException {
+                for (int ordinal = 0; ordinal < ordinalCounts.length; ordinal++) {
+                    if (ordinalCounts[ordinal] > 0) {
+                        String value = values.lookupOrd(ordinal).utf8ToString();
+                        add(field == Field.DIRECTORY ? directoryOf(value) : value, ordinalCounts[ordinal]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String directoryOf(String file) {
+        Path parent = Path.of(file).getParent();
+        return parent == null ? "." : parent.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package org.example;
+
+/**
+ * Найденный в индексе объект.
+ *
+ * @param type    тип объекта
+ * @param content имя объекта или значение литерала
+ * @param file    путь к файлу
+ * @param line    номер строки
+ * @param varType тип поля или локальной переменной; для остальных объектов null
+ */
+public record SymbolResult(SymbolType type, String content, String file, int line, String varType) {
+}
@@ -0,0 +1,48 @@
+package org.example;
+
+/**
+ * Типы объектов в индексе.
+ * Порядковый номер хранится в doc values поля type, поэтому новые типы
+ * добавляются только в конец списка.
+ */
+public enum SymbolType {
+    STRING_CONSTANT("StringConstant"),
+    CLASS("Class"),
+    METHOD("Method"),
+    INTERFACE("Interface"),
+    FIELD("Field"),
+    LOCAL_VARIABLE("LocalVariable"),
+    INTEGER_LITERAL("IntegerLiteral"),
+    FLOAT_LITERAL("FloatLiteral"),
+    BOOLEAN_LITERAL("BooleanLiteral"),
+    CHAR_LITERAL("CharLiteral"),
+    STRING_LITERAL("StringLiteral");
+
+    private static final SymbolType[] VALUES = values();
+
+    private final String name;
+
+    SymbolType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Имя типа, под которым он индексируется и указывается в запросах.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public static SymbolType fromName(String name) {
+        for (SymbolType type : VALUES) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип: " + name);
+    }
+
+    public static SymbolType fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
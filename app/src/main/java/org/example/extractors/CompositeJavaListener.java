@@ -0,0 +1,55 @@
+package org.example.extractors;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.List;
+
+/**
+ * Слушатель, который объединяет несколько экстракторов.
+ * Позволяет обойти дерево разбора один раз и передать события всем экстракторам,
+ * вместо того чтобы разбирать файл отдельно для каждого из них.
+ */
+public class CompositeJavaListener implements ParseTreeListener {
+    private final List<ParseTreeListener> listeners;
+
+    public CompositeJavaListener(ParseTreeListener... listeners) {
+        this.listeners = List.of(listeners);
+    }
+
+    public List<ParseTreeListener> getListeners() {
+        return listeners;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        for (ParseTreeListener listener : listeners) {
+            listener.enterEveryRule(ctx);
+            ctx.enterRule(listener);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        for (ParseTreeListener listener : listeners) {
+            ctx.exitRule(listener);
+            listener.exitEveryRule(ctx);
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        for (ParseTreeListener listener : listeners) {
+            listener.visitTerminal(node);
+        }
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        for (ParseTreeListener listener : listeners) {
+            listener.visitErrorNode(node);
+        }
+    }
+}
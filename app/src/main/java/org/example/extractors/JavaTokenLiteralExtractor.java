@@ -0,0 +1,138 @@
+package org.example.extractors;
+
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.example.JavaLexer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Извлекает литералы и строковые константы только по потоку токенов JavaLexer, без парсера.
+ * Литералы совпадают с результатом JavaLiteralExtractor. Строковые константы
+ * (объявление вида {@code Type name = "..."}) распознаются по последовательности токенов,
+ * поэтому, в отличие от JavaStringExtractor, сюда попадают и константы интерфейсов.
+ */
+public class JavaTokenLiteralExtractor {
+
+    private final List<JavaLiteralExtractor.ExtractedLiteral> literals = new ArrayList<>();
+    private final List<JavaStringExtractor.ExtractedString> strings = new ArrayList<>();
+    private String currentFile;
+
+    public void setCurrentFile(String file) {
+        this.currentFile = file;
+    }
+
+    public List<JavaLiteralExtractor.ExtractedLiteral> getLiterals() {
+        return literals;
+    }
+
+    public List<JavaStringExtractor.ExtractedString> getStrings() {
+        return strings;
+    }
+
+    /**
+     * Читает токены источника до конца файла. Скрытый канал (пробелы, комментарии) пропускается.
+     */
+    public void extract(TokenSource tokenSource) {
+        // Три предыдущих значимых токена: константа объявлена, если перед строкой стоят
+        // тип (или ',' того же объявления), имя и '='. В цепочке присваиваний перед именем стоит '='.
+        Token beforeName = null;
+        Token name = null;
+        Token previous = null;
+
+        // Инициализатор текущей строковой константы, собирается до ',' или ';' вне его скобок.
+        StringBuilder initializer = null;
+        int initializerLine = 0;
+        int depth = 0;
+        int initializerDepth = 0;
+        // Глубина скобок, на которой идет объявление: следующий декларатор после ',' тоже константа.
+        int declarationDepth = -1;
+
+        Token token;
+        while ((token = tokenSource.nextToken()).getType() != Token.EOF) {
+            if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+                continue;
+            }
+            int type = token.getType();
+            addLiteral(token);
+
+            if (initializer != null) {
+                if (depth == initializerDepth && isInitializerEnd(type)) {
+                    strings.add(new JavaStringExtractor.ExtractedString(currentFile, initializerLine,
+                            initializer.toString().replace("\"", "")));
+                    initializer = null;
+                } else {
+                    initializer.append(token.getText());
+                }
+            } else if (type == JavaLexer.StringLiteral && isAssignment(name, previous)
+                    && isDeclaration(beforeName, depth, declarationDepth)) {
+                initializer = new StringBuilder(token.getText());
+                initializerLine = name.getLine();
+                initializerDepth = depth;
+                declarationDepth = depth;
+            }
+
+            switch (type) {
+                case JavaLexer.LPAREN, JavaLexer.LBRACK, JavaLexer.LBRACE -> depth++;
+                case JavaLexer.RPAREN, JavaLexer.RBRACK, JavaLexer.RBRACE -> depth--;
+                case JavaLexer.SEMI -> declarationDepth = -1;
+                default -> { }
+            }
+
+            beforeName = name;
+            name = previous;
+            previous = token;
+        }
+
+        if (initializer != null) {
+            strings.add(new JavaStringExtractor.ExtractedString(currentFile, initializerLine,
+                    initializer.toString().replace("\"", "")));
+        }
+    }
+
+    private static boolean isInitializerEnd(int type) {
+        return type == JavaLexer.COMMA || type == JavaLexer.SEMI
+                || type == JavaLexer.RPAREN || type == JavaLexer.RBRACK || type == JavaLexer.RBRACE;
+    }
+
+    private static boolean isAssignment(Token name, Token previous) {
+        return name != null && name.getType() == JavaLexer.Identifier
+                && previous.getType() == JavaLexer.ASSIGN;
+    }
+
+    private static boolean isDeclaration(Token beforeName, int depth, int declarationDepth) {
+        if (beforeName == null) {
+            return false;
+        }
+        return switch (beforeName.getType()) {
+            case JavaLexer.Identifier, JavaLexer.GT, JavaLexer.RBRACK,
+                 JavaLexer.BOOLEAN, JavaLexer.BYTE, JavaLexer.CHAR, JavaLexer.SHORT,
+                 JavaLexer.INT, JavaLexer.LONG, JavaLexer.FLOAT, JavaLexer.DOUBLE -> true;
+            case JavaLexer.COMMA -> depth == declarationDepth;
+            default -> false;
+        };
+    }
+
+    private void addLiteral(Token token) {
+        String value = token.getText();
+        String type;
+        switch (token.getType()) {
+            case JavaLexer.IntegerLiteral -> type = "IntegerLiteral";
+            case JavaLexer.FloatingPointLiteral -> type = "FloatLiteral";
+            case JavaLexer.BooleanLiteral -> type = "BooleanLiteral";
+            case JavaLexer.CharacterLiteral -> {
+                type = "CharLiteral";
+                value = value.substring(1, value.length() - 1);
+            }
+            case JavaLexer.StringLiteral -> {
+                type = "StringLiteral";
+                value = value.substring(1, value.length() - 1);
+            }
+            default -> {
+                return;
+            }
+        }
+        literals.add(new JavaLiteralExtractor.ExtractedLiteral(currentFile, token.getLine(), value, type));
+    }
+}
@@ -1,10 +1,23 @@
 package org.example;
 
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.store.MMapDirectory;
+import org.example.extractors.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -13,41 +26,49 @@ public class AppTest {
     private static MMapDirectory directory;
     private static IndexWriter writer;
 
+    @TempDir
+    static Path indexDirectory;
+
     @BeforeAll
     static void setUpIndex() throws IOException, InterruptedException {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
         JavaSourceIndexer.indexJavaSources("src/test/resources");
     }
 
     @AfterAll
     static void tearDown() throws IOException {
+        IndexSearchers.close();
         if (directory != null) {
             directory.close();
         }
     }
 
+    private static String find(SymbolType type, String query, boolean isFuzzy, boolean isCaseSensitive) throws IOException {
+        StringWriter out = new StringWriter();
+        QueryExecutor.execute(new SearchRequest(query, type, isFuzzy, isCaseSensitive), new ConsoleResultSink(new PrintWriter(out)));
+        return out.toString();
+    }
+
     @Test
-    public void testFindStringConstants() {
-        QueryExecutor.findStringConstants("test String", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindStringConstants() throws IOException {
+        String logOutput = find(SymbolType.STRING_CONSTANT, "test String", false, false);
 
-        assertTrue(logOutput.contains("Найдено совпадений c Test String: 2"));
+        assertTrue(logOutput.contains("Найдено совпадений c test String: 2"));
         assertTrue(logOutput.contains("StringConstant: Test String, Файл: src/test/resources/TestClass.java, Строка: 7"));
         assertTrue(logOutput.contains("StringConstant: Test String, Файл: src/test/resources/TestClass.java, Строка: 12"));
     }
 
     @Test
-    public void testFindClass() {
-        QueryExecutor.findClass("TestClass", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindClass() throws IOException {
+        String logOutput = find(SymbolType.CLASS, "TestClass", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c TestClass: 1"));
         assertTrue(logOutput.contains("Class: TestClass, Файл: src/test/resources/TestClass.java, Строка: 6"));
     }
 
     @Test
-    public void testFindMethod() {
-        QueryExecutor.findMethod("testMethod", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindMethod() throws IOException {
+        String logOutput = find(SymbolType.METHOD, "testMethod", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c testMethod: 2"));
         assertTrue(logOutput.contains("Method: testMethod, Файл: src/test/resources/TestClass.java, Строка: 14"));
@@ -55,36 +76,32 @@ public class AppTest {
     }
 
     @Test
-    public void testFindMethodWithReturn() {
-        QueryExecutor.findMethod("testMethodWithReturn", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindMethodWithReturn() throws IOException {
+        String logOutput = find(SymbolType.METHOD, "testMethodWithReturn", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c testMethodWithReturn: 1"));
         assertTrue(logOutput.contains("Method: testMethodWithReturn, Файл: src/test/resources/TestClass.java, Строка: 19"));
     }
 
     @Test
-    public void testFindInterface() {
-        QueryExecutor.findInterface("TestInterface", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindInterface() throws IOException {
+        String logOutput = find(SymbolType.INTERFACE, "TestInterface", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c TestInterface: 1"));
         assertTrue(logOutput.contains("Interface: TestInterface, Файл: src/test/resources/TestClass.java, Строка: 1"));
     }
 
     @Test
-    public void testFindField() {
-        QueryExecutor.findField("testField", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindField() throws IOException {
+        String logOutput = find(SymbolType.FIELD, "testField", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c testField: 1"));
         assertTrue(logOutput.contains("Field: testField, Тип: String, Файл: src/test/resources/TestClass.java, Строка: 7"));
     }
 
     @Test
-    public void testFindLocalVariable() {
-        QueryExecutor.findLocalVariable("localVariable", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindLocalVariable() throws IOException {
+        String logOutput = find(SymbolType.LOCAL_VARIABLE, "localVariable", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c localVariable: 2"));
         assertTrue(logOutput.contains("LocalVariable: localVariable, Тип: String, Файл: src/test/resources/TestClass.java, Строка: 15"));
@@ -92,9 +109,8 @@ public class AppTest {
     }
 
     @Test
-    public void testFindStringLiteral() {
-        QueryExecutor.findLiteral("Test String", "StringLiteral", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindStringLiteral() throws IOException {
+        String logOutput = find(SymbolType.STRING_LITERAL, "Test String", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c Test String: 2"));
         assertTrue(logOutput.contains("StringLiteral: Test String, Файл: src/test/resources/TestClass.java, Строка: 7"));
@@ -102,9 +118,8 @@ public class AppTest {
     }
 
     @Test
-    public void testFindIntLiteral() {
-        QueryExecutor.findLiteral("12345", "IntegerLiteral", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindIntLiteral() throws IOException {
+        String logOutput = find(SymbolType.INTEGER_LITERAL, "12345", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c 12345: 2"));
         assertTrue(logOutput.contains("IntegerLiteral: 12345, Файл: src/test/resources/TestClass.java, Строка: 8"));
@@ -112,9 +127,8 @@ public class AppTest {
     }
 
     @Test
-    public void testFindFloatLiteral() {
-        QueryExecutor.findLiteral("123.45", "FloatLiteral", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindFloatLiteral() throws IOException {
+        String logOutput = find(SymbolType.FLOAT_LITERAL, "123.45", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c 123.45: 2"));
         assertTrue(logOutput.contains("FloatLiteral: 123.45, Файл: src/test/resources/TestClass.java, Строка: 9"));
@@ -122,27 +136,24 @@ public class AppTest {
     }
 
     @Test
-    public void testFindCharLiteral() {
-        QueryExecutor.findLiteral("A", "CharLiteral", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindCharLiteral() throws IOException {
+        String logOutput = find(SymbolType.CHAR_LITERAL, "A", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c A: 1"));
         assertTrue(logOutput.contains("CharLiteral: A, Файл: src/test/resources/TestClass.java, Строка: 10"));
     }
 
     @Test
-    public void testFindBooleanLiteral() {
-        QueryExecutor.findLiteral("true", "BooleanLiteral", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFindBooleanLiteral() throws IOException {
+        String logOutput = find(SymbolType.BOOLEAN_LITERAL, "true", false, false);
 
         assertTrue(logOutput.contains("Найдено совпадений c true: 1"));
         assertTrue(logOutput.contains("BooleanLiteral: true, Файл: src/test/resources/TestClass.java, Строка: 11"));
     }
 
     @Test
-    public void testFuzzyFindStringConstants() {
-        QueryExecutor.findStringConstants("TesString", true, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFuzzyFindStringConstants() throws IOException {
+        String logOutput = find(SymbolType.STRING_CONSTANT, "TesString", true, false);
 
         assertTrue(logOutput.contains("Найдено совпадений с TesString: 2"));
         assertTrue(logOutput.contains("StringConstant: Test String, Файл: src/test/resources/TestClass.java, Строка: 7"));
@@ -150,18 +161,16 @@ public class AppTest {
     }
 
     @Test
-    public void testFuzzyFindClass() {
-        QueryExecutor.findClass("TstClas", true, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFuzzyFindClass() throws IOException {
+        String logOutput = find(SymbolType.CLASS, "TstClas", true, false);
 
         assertTrue(logOutput.contains("Найдено совпадений с TstClas: 1"));
         assertTrue(logOutput.contains("Class: TestClass, Файл: src/test/resources/TestClass.java, Строка: 6"));
     }
 
     @Test
-    public void testFuzzyFindMethod() {
-        QueryExecutor.findMethod("testMethood", true, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFuzzyFindMethod() throws IOException {
+        String logOutput = find(SymbolType.METHOD, "testMethood", true, false);
 
         assertTrue(logOutput.contains("Найдено совпадений с testMethood: 2"));
         assertTrue(logOutput.contains("Method: testMethod, Файл: src/test/resources/TestClass.java, Строка: 14"));
@@ -169,18 +178,16 @@ public class AppTest {
     }
 
     @Test
-    public void testFuzzyFindField() {
-        QueryExecutor.findField("tesField", true, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFuzzyFindField() throws IOException {
+        String logOutput = find(SymbolType.FIELD, "tesField", true, false);
 
         assertTrue(logOutput.contains("Найдено совпадений с tesField: 1"));
         assertTrue(logOutput.contains("Field: testField, Тип: String, Файл: src/test/resources/TestClass.java, Строка: 7"));
     }
 
     @Test
-    public void testFuzzyFindLiteral() {
-        QueryExecutor.findLiteral("1234", "IntegerLiteral", true, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testFuzzyFindLiteral() throws IOException {
+        String logOutput = find(SymbolType.INTEGER_LITERAL, "1234", true, false);
 
         assertTrue(logOutput.contains("Найдено совпадений с 1234: 2"));
         assertTrue(logOutput.contains("IntegerLiteral: 12345, Файл: src/test/resources/TestClass.java, Строка: 8"));
@@ -188,23 +195,20 @@ public class AppTest {
     }
 
     @Test
-    public void testEmptySearchQuery() {
-        QueryExecutor.findStringConstants("", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testEmptySearchQuery() throws IOException {
+        String logOutput = find(SymbolType.STRING_CONSTANT, "", false, false);
         assertTrue(logOutput.contains("Найдено совпадений c : 0"));
     }
 
     @Test
-    public void testNoMatchesFound() {
-        QueryExecutor.findStringConstants("AbraAbraCadabra", false, false);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testNoMatchesFound() throws IOException {
+        String logOutput = find(SymbolType.STRING_CONSTANT, "AbraAbraCadabra", false, false);
         assertTrue(logOutput.contains("Найдено совпадений c AbraAbraCadabra: 0"));
     }
 
     @Test
-    public void testCaseSensitiveSearchMatch() {
-        QueryExecutor.findStringConstants("Test String", false, true); // case-sensitive = true
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testCaseSensitiveSearchMatch() throws IOException {
+        String logOutput = find(SymbolType.STRING_CONSTANT, "Test String", false, true);
 
         assertTrue(logOutput.contains("Найдено совпадений c Test String: 2"));
         assertTrue(logOutput.contains("StringConstant: Test String, Файл: src/test/resources/TestClass.java, Строка: 7"));
@@ -212,24 +216,107 @@ public class AppTest {
     }
 
     @Test
-    public void testCaseSensitiveSearchNoMatch() {
-        QueryExecutor.findStringConstants("test string", false, true);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testCaseSensitiveSearchNoMatch() throws IOException {
+        String logOutput = find(SymbolType.STRING_CONSTANT, "test string", false, true);
 
         assertTrue(logOutput.contains("Найдено совпадений c test string: 0"));
     }
 
     @Test
-    public void testClassCaseSensitivity() {
-        QueryExecutor.findClass("testclass", false, true);
-        String logOutput = QueryExecutor.logBuilder.toString();
+    public void testClassCaseSensitivity() throws IOException {
+        String logOutput = find(SymbolType.CLASS, "testclass", false, true);
 
         assertTrue(logOutput.contains("Найдено совпадений c testclass: 0"));
 
-        QueryExecutor.findClass("TestClass", false, true);
-        logOutput = QueryExecutor.logBuilder.toString();
+        logOutput = find(SymbolType.CLASS, "TestClass", false, true);
 
         assertTrue(logOutput.contains("Найдено совпадений c TestClass: 1"));
         assertTrue(logOutput.contains("Class: TestClass, Файл: src/test/resources/TestClass.java, Строка: 6"));
     }
+
+    @Test
+    public void testSinksReceiveTypedResults() throws IOException {
+        CollectingResultSink collected = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest("localVariable", SymbolType.LOCAL_VARIABLE, false, false), collected);
+
+        assertEquals(2, collected.getTotalHits());
+        assertTrue(collected.getResults().contains(
+                new SymbolResult(SymbolType.LOCAL_VARIABLE, "localVariable", "src/test/resources/TestClass.java", 15, "String")));
+
+        StringWriter out = new StringWriter();
+        QueryExecutor.execute(new SearchRequest("TestClass", SymbolType.CLASS, false, false), new JsonLinesResultSink(out));
+        assertEquals("{\"type\":\"Class\",\"content\":\"TestClass\",\"file\":\"src/test/resources/TestClass.java\",\"line\":6,\"varType\":null}\n",
+                out.toString());
+    }
+
+    @Test
+    public void testTwoStageParsingMatchesFullLL() throws IOException {
+        String content = Files.readString(Paths.get("src/test/resources/TestClass.java"));
+
+        List<ParseTreeListener> twoStage = newExtractors();
+        JavaSourceIndexer.extractWithWalker(content, new CompositeJavaListener(twoStage.toArray(new ParseTreeListener[0])));
+
+        List<ParseTreeListener> fullLL = newExtractors();
+        JavaParser parser = new JavaParser(new CommonTokenStream(new JavaLexer(CharStreams.fromString(content))));
+        new ParseTreeWalker().walk(new CompositeJavaListener(fullLL.toArray(new ParseTreeListener[0])), parser.compilationUnit());
+
+        assertEquals(((JavaStringExtractor) fullLL.get(0)).getStrings().toString(), ((JavaStringExtractor) twoStage.get(0)).getStrings().toString());
+        assertEquals(((JavaClassExtractor) fullLL.get(1)).getClasses().toString(), ((JavaClassExtractor) twoStage.get(1)).getClasses().toString());
+        assertEquals(((JavaMethodExtractor) fullLL.get(2)).getMethods().toString(), ((JavaMethodExtractor) twoStage.get(2)).getMethods().toString());
+        assertEquals(((JavaInterfaceExtractor) fullLL.get(3)).getInterfaces().toString(), ((JavaInterfaceExtractor) twoStage.get(3)).getInterfaces().toString());
+        assertEquals(((JavaFieldExtractor) fullLL.get(4)).getFields().toString(), ((JavaFieldExtractor) twoStage.get(4)).getFields().toString());
+        assertEquals(((JavaLocalVariableExtractor) fullLL.get(5)).getVariables().toString(), ((JavaLocalVariableExtractor) twoStage.get(5)).getVariables().toString());
+        assertEquals(((JavaLiteralExtractor) fullLL.get(6)).getLiterals().toString(), ((JavaLiteralExtractor) twoStage.get(6)).getLiterals().toString());
+    }
+
+    @Test
+    public void testParseStatisticsCountFallback() {
+        ParseStatistics statistics = JavaSourceIndexer.getParseStatistics();
+        statistics.reset();
+
+        JavaSourceIndexer.parse("class Valid { int x = 1; }");
+        JavaSourceIndexer.parse("class Broken { int x = ; }");
+
+        assertEquals(1, statistics.getSllFiles());
+        assertEquals(1, statistics.getLlFallbackFiles());
+    }
+
+    @Test
+    public void testStreamingExtractionMatchesTree() throws IOException {
+        String content = Files.readString(Paths.get("src/test/resources/TestClass.java")) + """
+                class Expressions {
+                    private String joined = "left" + 1 + 'c' + "right";
+                    void run() {
+                        Runnable r = new Runnable() {
+                            public void run() { int inner = 42 * 2 + 1; }
+                        };
+                        if (true) { float nested = 1.5f; }
+                    }
+                }
+                """;
+
+        List<ParseTreeListener> tree = newExtractors();
+        JavaSourceIndexer.extractWithWalker(content, new CompositeJavaListener(tree.toArray(new ParseTreeListener[0])));
+
+        List<ParseTreeListener> streaming = newExtractors();
+        JavaSourceIndexer.extractStreaming(new StringReader(content), new CompositeJavaListener(streaming.toArray(new ParseTreeListener[0])));
+
+        assertEquals(sorted(((JavaStringExtractor) tree.get(0)).getStrings()), sorted(((JavaStringExtractor) streaming.get(0)).getStrings()));
+        assertEquals(sorted(((JavaClassExtractor) tree.get(1)).getClasses()), sorted(((JavaClassExtractor) streaming.get(1)).getClasses()));
+        assertEquals(sorted(((JavaMethodExtractor) tree.get(2)).getMethods()), sorted(((JavaMethodExtractor) streaming.get(2)).getMethods()));
+        assertEquals(sorted(((JavaInterfaceExtractor) tree.get(3)).getInterfaces()), sorted(((JavaInterfaceExtractor) streaming.get(3)).getInterfaces()));
+        assertEquals(sorted(((JavaFieldExtractor) tree.get(4)).getFields()), sorted(((JavaFieldExtractor) streaming.get(4)).getFields()));
+        assertEquals(sorted(((JavaLocalVariableExtractor) tree.get(5)).getVariables()), sorted(((JavaLocalVariableExtractor) streaming.get(5)).getVariables()));
+        assertEquals(sorted(((JavaLiteralExtractor) tree.get(6)).getLiterals()), sorted(((JavaLiteralExtractor) streaming.get(6)).getLiterals()));
+    }
+
+    private static List<String> sorted(List<?> extracted) {
+        return extracted.stream().map(Object::toString).sorted().toList();
+    }
+
+    private static List<ParseTreeListener> newExtractors() {
+        return List.of(new JavaStringExtractor(), new JavaClassExtractor(), new JavaMethodExtractor(),
+                new JavaInterfaceExtractor(), new JavaFieldExtractor(), new JavaLocalVariableExtractor(),
+                new JavaLiteralExtractor());
+    }
 }
@@ -0,0 +1,183 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Пакетное выполнение запросов: порядок и содержимое ответов совпадают с последовательным
+ * выполнением, некорректные запросы не прерывают пакет. Последний тест сравнивает
+ * пропускную способность пакета и последовательных запросов.
+ */
+public class BatchQueryTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 200;
+    private static final int METHODS_PER_FILE = 50;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    /**
+     * Ответ на один запрос пакета.
+     */
+    private record Answer(SearchRequest request, int totalHits, List<SymbolResult> results) {
+    }
+
+    /**
+     * Запоминает ответы по порядку.
+     */
+    private static class RecordingSink implements ResultSink {
+        private final List<Answer> answers = new ArrayList<>();
+        private List<SymbolResult> current;
+
+        @Override
+        public void begin(SearchRequest request, int totalHits) {
+            current = new ArrayList<>();
+            answers.add(new Answer(request, totalHits, current));
+        }
+
+        @Override
+        public void accept(SymbolResult result) {
+            current.add(result);
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSequentialExecution() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        List<SearchRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(new SearchRequest("handle" + i, SymbolType.METHOD, MatchMode.EXACT, false));
+            requests.add(new SearchRequest("Service" + i, SymbolType.CLASS, MatchMode.PREFIX, false, 5, 1));
+        }
+        requests.add(new SearchRequest("([", SymbolType.STRING_LITERAL, MatchMode.REGEX, false));
+        requests.add(new SearchRequest("process", SymbolType.METHOD, MatchMode.EXACT, false, 10, 2));
+
+        RecordingSink sink = new RecordingSink();
+        QueryExecutor.BatchStatistics statistics = QueryExecutor.executeBatch(requests, sink);
+        assertEquals(requests.size(), statistics.queries());
+        assertEquals(1, statistics.failed());
+        assertEquals(requests.size() - 1, sink.answers.size());
+
+        IndexSearchers.refresh();
+        long totalHits = 0;
+        List<SearchRequest> valid = requests.stream().filter(request -> request.mode() != MatchMode.REGEX).toList();
+        for (int i = 0; i < valid.size(); i++) {
+            CollectingResultSink expected = new CollectingResultSink();
+            QueryExecutor.execute(valid.get(i), expected);
+            Answer answer = sink.answers.get(i);
+            assertEquals(valid.get(i), answer.request());
+            assertEquals(expected.getTotalHits(), answer.totalHits());
+            assertEquals(expected.getResults(), answer.results());
+            totalHits += answer.totalHits();
+        }
+        assertEquals(totalHits, statistics.totalHits());
+    }
+
+    @Test
+    public void testBatchCommandReadsQueriesFromFile() throws Exception {
+        Files.writeString(sourceDirectory.resolve("Batch.java"), """
+                public class Batch {
+                    void getTestField() { }
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        Path queries = Files.writeString(sourceDirectory.resolve("queries.txt"), """
+                # устаревшие методы
+                method getTestField
+                find class --prefix Bat
+                unknowntype query
+                """);
+
+        Method method = CodeSearch.class.getDeclaredMethod("handleBatchCommand", String[].class);
+        method.setAccessible(true);
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            method.invoke(null, (Object) new String[]{"batch", queries.toString()});
+        } finally {
+            System.setOut(originalOut);
+        }
+        String printed = output.toString();
+        assertTrue(printed.contains("Пропущена строка 4: unknowntype query"));
+        assertTrue(printed.contains("Method: getTestField"));
+        assertTrue(printed.contains("Class: Batch"));
+        assertTrue(printed.contains("Выполнено запросов: 2 (некорректных 0), совпадений: 2"));
+    }
+
+    @Test
+    public void compareBatchWithSequentialQueries() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        List<SearchRequest> requests = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            for (int j = 0; j < 10; j++) {
+                requests.add(new SearchRequest("handle" + (i * 10 + j), SymbolType.METHOD, MatchMode.EXACT, false));
+            }
+        }
+
+        // Прогрев, затем сброс кеша запросов обновлением поколения.
+        QueryExecutor.executeBatch(requests, new CollectingResultSink());
+        IndexSearchers.refresh();
+
+        long start = System.nanoTime();
+        for (SearchRequest request : requests) {
+            QueryExecutor.execute(request, new CollectingResultSink());
+        }
+        long sequentialNanos = System.nanoTime() - start;
+        IndexSearchers.refresh();
+
+        QueryExecutor.BatchStatistics statistics = QueryExecutor.executeBatch(requests, new CollectingResultSink());
+        assertEquals(0, statistics.failed());
+        assertEquals(requests.size(), statistics.totalHits());
+
+        logger.info("Запросов: {}, потоков поиска: {}", requests.size(), IndexSearchers.THREAD_COUNT);
+        logger.info("Последовательно: {} запросов/с", String.format("%.1f", requests.size() * 1e9 / sequentialNanos));
+        logger.info("Пакетом: {} запросов/с", String.format("%.1f", statistics.queriesPerSecond()));
+    }
+
+    private void generateCorpus() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n")
+                    .append("    void process() { }\n");
+            for (int j = 0; j < METHODS_PER_FILE; j++) {
+                source.append("    void handle").append(i * METHODS_PER_FILE + j).append("() { }\n");
+            }
+            source.append("}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package org.example;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
 import java.lang.reflect.*;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -13,8 +15,12 @@ public class ConsoleAppTest {
     private final PrintStream originalOut = System.out;
     private ByteArrayInputStream inContent;
 
+    @TempDir
+    Path indexDirectory;
+
     @BeforeEach
     public void setUp() throws IllegalAccessException, NoSuchFieldException {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
         System.setOut(new PrintStream(outContent));
         Field runningField = CodeSearch.class.getDeclaredField("running");
         runningField.setAccessible(true);
@@ -36,10 +42,45 @@ public class ConsoleAppTest {
         String output = outContent.toString();
         String expectedOutput = String.join(System.lineSeparator(),
                 "Доступные команды:",
-                "  index <path>                     Запуск индексации вашего проекта по указанному пути.",
+                "  index <path> [--full, --watch]   Запуск индексации вашего проекта по указанному пути.",
+                "                                   По умолчанию переиндексируются только измененные файлы.",
+                "                                   Флаг [--full] перестраивает индекс полностью.",
+                "                                   Флаг [--watch] поддерживает индекс актуальным при изменении файлов.",
+                "                                   Флаги [--include <glob>, --exclude <glob>] отбирают файлы",
+                "                                   (по умолчанию пропускаются target/, build/, .git/).",
+                "                                   Файлы больше [--stream-threshold <bytes>] разбираются без дерева.\n" +
+                "                                   Флаг [--literals-only] индексирует только литералы и строки\n" +
+                "                                   без синтаксического разбора.\n" +
+                "                                   Флаг [--shards <n>] делит индекс на n частей, которые\n" +
+                "                                   записываются параллельно.",
                 "  find <type> <query> [-f, -cs]    Поиск объектов указанного типа (stringconstant, class, method, interface, field, localvariable,",
                 "                                   [integer/float/boolean/char/string]literal) с запросом.",
                 "                                   Флаг [-f] позволяет искать с неточностями. Флаг [-cs] учитывает регистр.",
+                "                                   Флаг [--regex] ищет значения, содержащие совпадение с регулярным",
+                "                                   выражением, например: find stringliteral --regex 'jdbc:.*:5432'.",
+                "                                   Флаг [--prefix] ищет значения по началу: find method --prefix getTest*.",
+                "                                   Флаг [--camel] ищет имена по частям camelCase: find method --camel gTF.",
+                "                                   Флаг [--text] ищет слова и фразы внутри строк с ранжированием:",
+                "                                   find stringconstant \"connection timeout\" --text.",
+                "                                   Флаги [--limit <n>, --page <k>] выводят k-ю страницу из n результатов.",
+                "                                   Флаг [--json] выводит результаты в формате JSON Lines.",
+                "                                   Флаг [--timeout <ms>] ограничивает время запроса; при превышении",
+                "                                   или по Ctrl-C выводятся результаты, найденные до остановки.",
+                "  count <type> [<query>]           Вывести число совпадений (флаги как у find) или объектов типа.",
+                "  facet <field> [<type> [<query>]] Подсчитать совпадения по значениям поля: type, file, directory",
+                "                                   (каталог файла) или vartype. Флаг [--top <n>] задает число значений",
+                "                                   (по умолчанию 20), например: facet directory class --top 10.",
+                "  batch <file> [--json]            Выполнить запросы из файла: по одному запросу find в строке",
+                "                                   (слово find можно опустить). Запросы выполняются параллельно",
+                "                                   по одному состоянию индекса, в конце выводится число запросов в секунду.",
+                "  limits [--timeout <ms>]          Показать или задать время запроса по умолчанию (10 с) и число",
+                "  [--max-expansions <n>]           терминов, в которые раскрывается неточный запрос (по умолчанию 50).",
+                "  serve [--port <n>]               Запустить сервер поиска на 127.0.0.1 (порт по умолчанию 8765)",
+                "                                   с запросами /find, /batch, /index и /status; ответы в формате JSON.",
+                "                                   Без консоли: CodeSearch serve [--port <n>]. Команда",
+                "                                   CodeSearch find ... передается запущенному серверу через сокет",
+                "                                   .codesearch.sock, а без сервера выполняется в процессе.",
+                "  cache                            Показать статистику кеша запросов.",
                 "  help                             Показать документацию.",
                 "  exit                             Завершить работу приложения :-(",
                 ""
@@ -54,7 +95,7 @@ public class ConsoleAppTest {
 
         method.invoke(null, (Object) new String[]{"index", "src"});
         String output = outContent.toString().trim();
-        assertTrue(output.contains("Запуск индексации для: src"));
+        assertTrue(output.contains("Запуск инкрементальной индексации для: src"));
         outContent.reset();
 
         method.invoke(null, (Object) new String[]{"index"});
@@ -62,6 +103,24 @@ public class ConsoleAppTest {
         assertTrue(output.contains("Ошибка: Укажите путь для индексации."));
     }
 
+    @Test
+    public void testHandleIndexCommandRejectsInvalidNumbers() throws Exception {
+        Method method = CodeSearch.class.getDeclaredMethod("handleIndexCommand", String[].class);
+        method.setAccessible(true);
+
+        method.invoke(null, (Object) new String[]{"index", "src", "--shards", "abc"});
+        assertTrue(outContent.toString().contains("Ошибка: Значение [--shards] должно быть положительным."));
+        outContent.reset();
+
+        method.invoke(null, (Object) new String[]{"index", "src", "--shards", "0"});
+        assertTrue(outContent.toString().contains("Ошибка: Значение [--shards] должно быть положительным."));
+        outContent.reset();
+
+        method.invoke(null, (Object) new String[]{"index", "src", "--stream-threshold", "4MB"});
+        assertTrue(outContent.toString().contains("Ошибка: Значение [--stream-threshold] должно быть числом байт."));
+        assertFalse(outContent.toString().contains("Запуск"));
+    }
+
     @Test
     public void testIndexProjectSuccess() throws Exception {
         Method method = CodeSearch.class.getDeclaredMethod("indexProject", String.class);
@@ -101,6 +160,14 @@ public class ConsoleAppTest {
 //        assertTrue(output.contains("Запрос на Class: TestClass (учет регистра: false)"));
 //    }
 
+    @Test
+    public void testSplitCommandKeepsQuotedParts() {
+        assertArrayEquals(new String[]{"find", "stringconstant", "\"connection timeout\"~2", "--text"},
+                CodeSearch.splitCommand("find  stringconstant \"connection timeout\"~2 --text"));
+        assertArrayEquals(new String[]{"find", "stringliteral", "'a b c'", "-cs"},
+                CodeSearch.splitCommand("find stringliteral 'a b c' -cs"));
+    }
+
     @Test
     public void testHandleFindCommandInvalidType() throws Exception {
         Method method = CodeSearch.class.getDeclaredMethod("handleFindCommand", String[].class);
@@ -0,0 +1,183 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Консольный клиент сервера поиска через Unix domain socket: ответы совпадают с выполнением
+ * в процессе, ошибки передаются клиенту, без сервера запрос выполняется в процессе.
+ * Последний тест измеряет задержку запроса через сокет.
+ */
+public class DaemonClientTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 100;
+    private static final int MEASURED_QUERIES = 2000;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path socketDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    private SearchServer server;
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testAnswersMatchInProcessExecution() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        Path socket = socketDirectory.resolve("cs.sock");
+        server = SearchServer.start(0, socket);
+
+        for (SearchRequest request : new SearchRequest[]{
+                new SearchRequest("handle7", SymbolType.METHOD, MatchMode.EXACT, false),
+                new SearchRequest("Service1", SymbolType.CLASS, MatchMode.PREFIX, false, 4, 2),
+                new SearchRequest("count", SymbolType.LOCAL_VARIABLE, MatchMode.EXACT, true),
+                new SearchRequest("value #1", SymbolType.STRING_LITERAL, MatchMode.EXACT, false)}) {
+            CollectingResultSink local = new CollectingResultSink();
+            QueryExecutor.execute(request, local);
+            CollectingResultSink remote = new CollectingResultSink();
+            assertTrue(DaemonClient.find(socket, new SocketProtocol.Request(request, 0), remote));
+            assertEquals(local.getTotalHits(), remote.getTotalHits(), request.toString());
+            assertEquals(local.getResults(), remote.getResults(), request.toString());
+            assertTrue(remote.isComplete());
+        }
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> DaemonClient.find(socket,
+                new SocketProtocol.Request(new SearchRequest("([", SymbolType.STRING_LITERAL, MatchMode.REGEX, false), 0),
+                new CollectingResultSink()));
+        assertTrue(error.getMessage().contains("Unclosed"), error.getMessage());
+
+        // Второй сервер с тем же сокетом не запускается, а закрытие сервера удаляет файл сокета.
+        assertThrows(IOException.class, () -> SearchServer.start(0, socket));
+        server.close();
+        server = null;
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    public void testMalformedRequestGetsError() throws IOException {
+        Path socket = socketDirectory.resolve("cs.sock");
+        server = SearchServer.start(0, socket);
+        // Длина строки запроса около 2 ГБ: сервер отвечает ошибкой, не выделяя память под строку.
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(SocketProtocol.MAGIC);
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            assertEquals(SocketProtocol.ERROR, in.readByte());
+            assertTrue(SocketProtocol.readString(in).contains(Integer.toString(Integer.MAX_VALUE)));
+        }
+    }
+
+    @Test
+    public void testExecutionErrorReachesClient(@TempDir Path emptyDirectory) throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        Path socket = socketDirectory.resolve("cs.sock");
+        server = SearchServer.start(0, socket);
+        SocketProtocol.Request request = new SocketProtocol.Request(new SearchRequest("handle1", SymbolType.METHOD, MatchMode.EXACT, false), 0);
+
+        // В каталоге нет индекса: сервер сообщает об ошибке, а не закрывает соединение молча.
+        JavaSourceIndexer.setIndexDirectory(emptyDirectory);
+        IOException error = assertThrows(IOException.class, () -> DaemonClient.find(socket, request, new CollectingResultSink()));
+        assertNotNull(error.getMessage());
+        assertFalse(error instanceof EOFException, error.toString());
+
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+        assertTrue(DaemonClient.find(socket, request, new CollectingResultSink()));
+    }
+
+    @Test
+    public void testWithoutServerFindRunsInProcess() throws IOException, InterruptedException {
+        Path socket = socketDirectory.resolve("cs.sock");
+        SearchRequest request = new SearchRequest("handle1", SymbolType.METHOD, MatchMode.EXACT, false);
+        assertFalse(DaemonClient.find(socket, new SocketProtocol.Request(request, 0), new CollectingResultSink()));
+        // Файл, оставшийся от завершенного сервера.
+        Files.createFile(socket);
+        assertFalse(DaemonClient.find(socket, new SocketProtocol.Request(request, 0), new CollectingResultSink()));
+
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output));
+        try {
+            CodeSearch.main(new String[]{"find", "method", "handle1"});
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertTrue(output.toString().contains("Найдено совпадений c handle1: 1"), output.toString());
+    }
+
+    @Test
+    public void measureSocketLatency() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        Path socket = socketDirectory.resolve("cs.sock");
+        server = SearchServer.start(0, socket);
+
+        long[] latencies = new long[MEASURED_QUERIES];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < MEASURED_QUERIES; i++) {
+                SearchRequest request = new SearchRequest("Service" + i % FILES, SymbolType.CLASS, MatchMode.PREFIX, false, 10, 1);
+                long start = System.nanoTime();
+                assertTrue(DaemonClient.find(socket, new SocketProtocol.Request(request, 0), new CollectingResultSink()));
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        logger.info("Запросов через сокет: {}, задержка p50 {} мкс, p99 {} мкс", MEASURED_QUERIES,
+                latencies[MEASURED_QUERIES / 2] / 1000, latencies[MEASURED_QUERIES * 99 / 100] / 1000);
+    }
+
+    private void generateCorpus() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), """
+                    public class Service%d {
+                        void handle%d() {
+                            int count = %d;
+                            log("value #%d");
+                        }
+                    }
+                    """.formatted(i, i, i, i % 10));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.extractors.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение старого пути извлечения (отдельный разбор файла на каждый экстрактор)
+ * и нового (один разбор и один обход дерева для всех экстракторов) на одном корпусе.
+ * Корпус задается свойством benchmark.corpus, по умолчанию используются исходники проекта.
+ */
+public class ExtractionBenchmarkTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    public void compareSeparateAndSingleParse() throws IOException {
+        List<String> corpus = loadCorpus(Paths.get(System.getProperty("benchmark.corpus", "src")));
+        assertFalse(corpus.isEmpty());
+
+        for (String content : corpus) {
+            assertEquals(extractSeparately(content), extractInSinglePass(content));
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            corpus.forEach(ExtractionBenchmarkTest::extractSeparately);
+            corpus.forEach(ExtractionBenchmarkTest::extractInSinglePass);
+        }
+
+        long separateNanos = 0;
+        long singleNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            corpus.forEach(ExtractionBenchmarkTest::extractSeparately);
+            separateNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            corpus.forEach(ExtractionBenchmarkTest::extractInSinglePass);
+            singleNanos += System.nanoTime() - start;
+        }
+
+        logger.info("Корпус: {} файлов, раундов: {}", corpus.size(), MEASURED_ROUNDS);
+        logger.info("Отдельный разбор на каждый экстрактор: {} мс", separateNanos / 1_000_000);
+        logger.info("Один разбор для всех экстракторов: {} мс", singleNanos / 1_000_000);
+        logger.info("Ускорение: {}", String.format("%.2fx", (double) separateNanos / Math.max(1, singleNanos)));
+    }
+
+    private static List<String> loadCorpus(Path root) throws IOException {
+        List<String> corpus = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".java"))::iterator) {
+                corpus.add(Files.readString(file));
+            }
+        }
+        return corpus;
+    }
+
+    private static List<Object> extractSeparately(String content) {
+        List<ParseTreeListener> extractors = newExtractors();
+        for (ParseTreeListener extractor : extractors) {
+            JavaSourceIndexer.extractWithWalker(content, extractor);
+        }
+        return results(extractors);
+    }
+
+    private static List<Object> extractInSinglePass(String content) {
+        List<ParseTreeListener> extractors = newExtractors();
+        JavaSourceIndexer.extractWithWalker(content,
+                new CompositeJavaListener(extractors.toArray(new ParseTreeListener[0])));
+        return results(extractors);
+    }
+
+    private static List<ParseTreeListener> newExtractors() {
+        return List.of(new JavaStringExtractor(), new JavaClassExtractor(), new JavaMethodExtractor(),
+                new JavaInterfaceExtractor(), new JavaFieldExtractor(), new JavaLocalVariableExtractor(),
+                new JavaLiteralExtractor());
+    }
+
+    private static List<Object> results(List<ParseTreeListener> extractors) {
+        List<Object> results = new ArrayList<>();
+        results.add(((JavaStringExtractor) extractors.get(0)).getStrings().toString());
+        results.add(((JavaClassExtractor) extractors.get(1)).getClasses().toString());
+        results.add(((JavaMethodExtractor) extractors.get(2)).getMethods().toString());
+        results.add(((JavaInterfaceExtractor) extractors.get(3)).getInterfaces().toString());
+        results.add(((JavaFieldExtractor) extractors.get(4)).getFields().toString());
+        results.add(((JavaLocalVariableExtractor) extractors.get(5)).getVariables().toString());
+        results.add(((JavaLiteralExtractor) extractors.get(6)).getLiterals().toString());
+        return results;
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Подсчет совпадений и группировка по полям через doc values.
+ * Последний тест сравнивает подсчет по файлам в коллекторе с загрузкой всех найденных документов.
+ */
+public class FacetTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 300;
+    private static final int LITERALS_PER_FILE = 300;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testCountAndFacets() throws IOException, InterruptedException {
+        Path api = Files.createDirectories(sourceDirectory.resolve("api"));
+        Path impl = Files.createDirectories(sourceDirectory.resolve("impl"));
+        Files.writeString(api.resolve("Api.java"), """
+                public class Api {
+                    int limit = 100;
+                    String name = "api";
+                }
+                """);
+        Files.writeString(impl.resolve("First.java"), """
+                public class First {
+                    int limit = 100;
+                    void run() {
+                        int count = 100;
+                        String label = "first";
+                    }
+                }
+                """);
+        Files.writeString(impl.resolve("Second.java"), """
+                public class Second {
+                    long total = 100;
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        Query literal = QueryExecutor.buildQuery("100", SymbolType.INTEGER_LITERAL, MatchMode.EXACT, false);
+        assertEquals(4, QueryExecutor.count(literal));
+        assertEquals(3, QueryExecutor.count(QueryExecutor.typeQuery(SymbolType.CLASS)));
+
+        assertEquals(List.of(new SymbolFacets.Count(impl.toString(), 3), new SymbolFacets.Count(api.toString(), 1)),
+                QueryExecutor.facet(literal, SymbolFacets.Field.DIRECTORY, 10));
+        assertEquals(List.of(new SymbolFacets.Count(impl.resolve("First.java").toString(), 2)),
+                QueryExecutor.facet(literal, SymbolFacets.Field.FILE, 1));
+        assertEquals(List.of(new SymbolFacets.Count("int", 2), new SymbolFacets.Count("String", 1), new SymbolFacets.Count("long", 1)),
+                QueryExecutor.facet(QueryExecutor.typeQuery(SymbolType.FIELD), SymbolFacets.Field.VAR_TYPE, 10));
+
+        Map<String, Long> types = new HashMap<>();
+        for (SymbolFacets.Count count : QueryExecutor.facet(QueryExecutor.typeQuery(null), SymbolFacets.Field.TYPE, 20)) {
+            types.put(count.value(), count.count());
+        }
+        assertEquals(3L, types.get("Class"));
+        assertEquals(4L, types.get("Field"));
+        assertEquals(2L, types.get("LocalVariable"));
+        assertEquals(4L, types.get("IntegerLiteral"));
+    }
+
+    @Test
+    public void compareFacetWithLoadingDocuments() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        Query query = QueryExecutor.typeQuery(SymbolType.STRING_LITERAL);
+
+        try (IndexReader reader = IndexShards.openReader(indexDirectory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            SymbolDocumentReader documents = new SymbolDocumentReader(searcher);
+
+            long facetNanos = 0;
+            long loadingNanos = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                List<SymbolFacets.Count> facets = SymbolFacets.count(searcher, query, SymbolFacets.Field.FILE, FILES);
+                facetNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                Map<String, Long> loaded = new HashMap<>();
+                for (var hit : searcher.search(query, reader.numDocs()).scoreDocs) {
+                    loaded.merge(documents.result(hit.doc).file(), 1L, Long::sum);
+                }
+                loadingNanos += System.nanoTime() - start;
+
+                assertEquals(FILES, facets.size());
+                for (SymbolFacets.Count count : facets) {
+                    assertEquals(loaded.get(count.value()), count.count());
+                }
+            }
+            logger.info("Литералов: {}, подсчет по файлам: в коллекторе {} мкс, загрузкой документов {} мкс",
+                    searcher.count(query), facetNanos / MEASURED_ROUNDS / 1000, loadingNanos / MEASURED_ROUNDS / 1000);
+        }
+    }
+
+    private void generateCorpus() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n    void run() {\n");
+            for (int j = 0; j < LITERALS_PER_FILE + i % 7; j++) {
+                source.append("        log(\"message ").append(j).append("\");\n");
+            }
+            source.append("    }\n}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+}
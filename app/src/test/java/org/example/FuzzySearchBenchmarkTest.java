@@ -0,0 +1,159 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение неточного поиска по общему для всех типов полю content_lowercase (прежняя схема)
+ * и по отдельному полю типа. Корпус содержит много строковых литералов, поэтому общий словарь
+ * терминов во много раз больше словаря классов или методов.
+ * Индекс прежней схемы строится из тех же документов, что и текущий.
+ */
+public class FuzzySearchBenchmarkTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 300;
+    private static final int LITERALS_PER_FILE = 300;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private static final String SHARED_CONTENT = "content_lowercase";
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void compareSharedAndPerTypeFuzzyQueries() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        List<String> names = List.of("Servce17", "Servic42", "Srvice123", "proces", "handel");
+        List<SymbolType> types = List.of(SymbolType.CLASS, SymbolType.CLASS, SymbolType.CLASS, SymbolType.METHOD, SymbolType.METHOD);
+
+        try (IndexReader reader = IndexShards.openReader(indexDirectory);
+             Directory sharedDirectory = buildSharedLayout(reader);
+             DirectoryReader sharedReader = DirectoryReader.open(sharedDirectory)) {
+            IndexSearcher perType = new IndexSearcher(reader);
+            IndexSearcher shared = new IndexSearcher(sharedReader);
+
+            List<Query> perTypeQueries = new ArrayList<>();
+            List<Query> sharedQueries = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                perTypeQueries.add(QueryExecutor.buildQuery(names.get(i), types.get(i), true, false));
+                sharedQueries.add(new BooleanQuery.Builder()
+                        .add(new FuzzyQuery(new Term(SHARED_CONTENT, IndexSchema.normalize(names.get(i))), 2), BooleanClause.Occur.MUST)
+                        .add(new TermQuery(new Term(IndexSchema.TYPE, types.get(i).getName())), BooleanClause.Occur.MUST)
+                        .build());
+            }
+            for (Query query : perTypeQueries) {
+                assertTrue(perType.count(query) > 0);
+            }
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                run(shared, sharedQueries);
+                run(perType, perTypeQueries);
+            }
+            long sharedNanos = 0;
+            long perTypeNanos = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                sharedNanos += run(shared, sharedQueries);
+                perTypeNanos += run(perType, perTypeQueries);
+            }
+
+            int queries = MEASURED_ROUNDS * names.size();
+            logger.info("Документов: {}, неточных запросов: {}", reader.numDocs(), queries);
+            logger.info("Общее поле content_lowercase: {} мкс/запрос", sharedNanos / queries / 1000);
+            logger.info("Поле типа: {} мкс/запрос", perTypeNanos / queries / 1000);
+            logger.info("Ускорение: {}", String.format("%.2fx", (double) sharedNanos / Math.max(1, perTypeNanos)));
+        }
+    }
+
+    private static long run(IndexSearcher searcher, List<Query> queries) throws IOException {
+        long start = System.nanoTime();
+        for (Query query : queries) {
+            searcher.search(query, 10);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Переписывает документы текущего индекса в прежнюю схему: одно поле значений для всех типов
+     * и термин типа для фильтрации.
+     */
+    private static Directory buildSharedLayout(IndexReader reader) throws IOException {
+        Directory directory = new ByteBuffersDirectory();
+        IndexSearcher searcher = new IndexSearcher(reader);
+        SymbolDocumentReader documents = new SymbolDocumentReader(searcher);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (ScoreDoc hit : searcher.search(new MatchAllDocsQuery(), Math.max(1, reader.numDocs())).scoreDocs) {
+                SymbolResult result = documents.result(hit.doc);
+                Document doc = new Document();
+                doc.add(new StringField(SHARED_CONTENT, IndexSchema.normalize(result.content()), Field.Store.NO));
+                doc.add(new StringField(IndexSchema.TYPE, result.type().getName(), Field.Store.NO));
+                writer.addDocument(doc);
+            }
+        }
+        return directory;
+    }
+
+    private void generateCorpus() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n")
+                    .append("    void process() { }\n")
+                    .append("    void handle" + i + "() {\n");
+            for (int j = 0; j < LITERALS_PER_FILE; j++) {
+                source.append("        log(\"").append(randomWord(random)).append("\");\n");
+            }
+            source.append("    }\n}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[5 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.MMapDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalIndexingTest {
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void testAddedChangedAndDeletedFiles() throws IOException, InterruptedException {
+        Path first = sourceDirectory.resolve("First.java");
+        Path second = sourceDirectory.resolve("Second.java");
+        Files.writeString(first, "public class First { private int a = 1; }");
+        Files.writeString(second, "public class Second { private int b = 2; }");
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        assertEquals(1, countClasses("First"));
+        assertEquals(1, countClasses("Second"));
+
+        Files.writeString(first, "public class Renamed { private int a = 1; }");
+        Files.setLastModifiedTime(first, FileTime.fromMillis(Files.getLastModifiedTime(first).toMillis() + 1000));
+        Files.delete(second);
+        Files.writeString(sourceDirectory.resolve("Third.java"), "public class Third { }");
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString());
+        assertEquals(0, countClasses("First"));
+        assertEquals(1, countClasses("Renamed"));
+        assertEquals(0, countClasses("Second"));
+        assertEquals(1, countClasses("Third"));
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString());
+        assertEquals(1, countClasses("Renamed"));
+        assertEquals(1, countClasses("Third"));
+    }
+
+    @Test
+    public void testStreamedFileHashMatchesContent() throws IOException, InterruptedException {
+        Path file = sourceDirectory.resolve("Large.java");
+        Files.writeString(file, "public class Large { private String s = \"большой\"; }");
+        IndexOptions options = new IndexOptions().setFullRebuild(true).setStreamingThreshold(0);
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), options);
+        assertEquals(IndexManifest.hash(file), IndexManifest.load(indexDirectory).get(file.toString()).getHash());
+        assertEquals(1, countClasses("Large"));
+
+        // Тот же размер и содержимое, новое время изменения: файл не переиндексируется.
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), options.setFullRebuild(false));
+        assertEquals(1, countClasses("Large"));
+
+        Files.writeString(file, "public class Larger { private String s = \"больше\"; }");
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), options);
+        assertEquals(IndexManifest.hash(file), IndexManifest.load(indexDirectory).get(file.toString()).getHash());
+        assertEquals(0, countClasses("Large"));
+        assertEquals(1, countClasses("Larger"));
+    }
+
+    @Test
+    public void testFailedFileLeavesNoPartialDocuments() throws IOException, InterruptedException {
+        Path file = sourceDirectory.resolve("Huge.java");
+        Files.writeString(file, "public class Partial { }");
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        assertEquals(1, countClasses("Partial"));
+
+        // Литерал длиннее предельного размера термина: документ литерала не добавляется,
+        // а документы класса и метода добавляются раньше него.
+        Files.writeString(file, "public class Huge { void run() { call(\"" + "x".repeat(40_000) + "\"); } }");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString());
+
+        assertEquals(0, countClasses("Partial"));
+        assertEquals(0, countClasses("Huge"));
+        assertNull(IndexManifest.load(indexDirectory).get(file.toString()));
+    }
+
+    private static int countClasses(String className) throws IOException {
+        try (MMapDirectory directory = new MMapDirectory(JavaSourceIndexer.getIndexDirectory());
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return new IndexSearcher(reader).count(new TermQuery(new Term(IndexSchema.contentField(SymbolType.CLASS), className)));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.MMapDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка компактной схемы индекса: путь, строка и тип восстанавливаются из doc values,
+ * строки ищутся по диапазону, регистр приводится анализатором.
+ * Второй тест выводит размер индекса и занимаемую открытым индексом кучу на корпусе
+ * из свойства benchmark.corpus (по умолчанию исходники проекта).
+ */
+public class IndexSchemaTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void testSymbolDocumentRoundTrip() throws IOException, InterruptedException {
+        Path file = sourceDirectory.resolve("Schema.java");
+        Files.writeString(file, """
+                public class Schema {
+                    private int count = 1;
+                    private String title = "Ärger";
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        try (MMapDirectory directory = new MMapDirectory(indexDirectory);
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            SymbolDocumentReader documents = new SymbolDocumentReader(searcher);
+
+            TopDocs fields = searcher.search(new TermQuery(new Term(IndexSchema.contentField(SymbolType.FIELD), "count")), 10);
+            assertEquals(1, fields.scoreDocs.length);
+            Document field = documents.document(fields.scoreDocs[0].doc);
+            assertEquals(file.toString(), field.get(IndexSchema.FILE));
+            assertEquals("2", field.get(IndexSchema.LINE));
+            assertEquals("Field", field.get(IndexSchema.TYPE));
+            assertEquals("int", field.get(IndexSchema.VAR_TYPE));
+
+            assertEquals(1, searcher.count(new TermQuery(
+                    new Term(IndexSchema.contentLowercaseField(SymbolType.STRING_LITERAL), IndexSchema.normalize("äRGER")))));
+            assertEquals(0, searcher.count(new TermQuery(
+                    new Term(IndexSchema.contentLowercaseField(SymbolType.STRING_LITERAL), IndexSchema.normalize("count")))));
+
+            assertEquals(3, searcher.count(new BooleanQuery.Builder()
+                    .add(IntPoint.newRangeQuery(IndexSchema.LINE, 2, 3), BooleanClause.Occur.MUST)
+                    .add(new TermQuery(new Term(IndexSchema.TYPE, "Field")), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(IndexSchema.TYPE, "IntegerLiteral")), BooleanClause.Occur.SHOULD)
+                    .setMinimumNumberShouldMatch(1)
+                    .build()));
+        }
+    }
+
+    @Test
+    public void reportIndexFootprint() throws IOException, InterruptedException {
+        Path corpus = Paths.get(System.getProperty("benchmark.corpus", "src"));
+        JavaSourceIndexer.indexJavaSources(corpus.toString(), true);
+
+        long sourceBytes = directorySize(corpus);
+        long indexBytes = directorySize(indexDirectory);
+
+        long heapBefore = usedHeap();
+        try (MMapDirectory directory = new MMapDirectory(indexDirectory);
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            assertTrue(searcher.count(new TermQuery(new Term(IndexSchema.TYPE, "Class"))) > 0);
+            long heapAfter = usedHeap();
+
+            logger.info("Исходники: {} байт, индекс: {} байт ({} байт на документ, документов {})",
+                    sourceBytes, indexBytes, indexBytes / Math.max(1, reader.numDocs()), reader.numDocs());
+            logger.info("Куча открытого индекса: {} байт", heapAfter - heapBefore);
+        }
+    }
+
+    private static long directorySize(Path path) throws IOException {
+        try (Stream<Path> walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
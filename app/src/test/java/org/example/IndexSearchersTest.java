@@ -0,0 +1,147 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexSearchersTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int QUERIES = 500;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testSearcherIsReusedAndRefreshedAfterCommit() throws IOException, InterruptedException {
+        Path file = sourceDirectory.resolve("First.java");
+        Files.writeString(file, "public class First { }");
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        IndexSearcher first = IndexSearchers.acquire();
+        IndexSearcher second = IndexSearchers.acquire();
+        try {
+            assertSame(first, second);
+            assertEquals(1, countClass(first, "First"));
+        } finally {
+            IndexSearchers.release(second);
+        }
+
+        Files.writeString(file, "public class Second { }");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString());
+
+        IndexSearcher refreshed = IndexSearchers.acquire();
+        try {
+            assertNotSame(first, refreshed);
+            assertEquals(1, countClass(refreshed, "Second"));
+            // Выданный до обновления поисковик продолжает видеть прежний снимок индекса.
+            assertEquals(1, countClass(first, "First"));
+        } finally {
+            IndexSearchers.release(refreshed);
+            IndexSearchers.release(first);
+        }
+    }
+
+    @Test
+    public void testExternalCommitIsPickedUp() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("External.java"), "public class External { }");
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        SearchRequest request = new SearchRequest("External", SymbolType.CLASS, MatchMode.EXACT, false);
+        assertEquals(1, QueryExecutor.execute(request, new CollectingResultSink()));
+        long generation = IndexSearchers.generation();
+
+        // Другой процесс фиксирует изменения, не обновляя поисковик этого процесса.
+        try (FSDirectory directory = FSDirectory.open(indexDirectory);
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setOpenMode(IndexWriterConfig.OpenMode.APPEND))) {
+            writer.deleteAll();
+            writer.commit();
+        }
+
+        Thread.sleep(IndexSearchers.EXTERNAL_CHECK_INTERVAL_MILLIS + 100);
+        // Ответ на тот же запрос не берется из кеша прежнего поколения.
+        assertEquals(0, QueryExecutor.execute(request, new CollectingResultSink()));
+        assertTrue(IndexSearchers.generation() > generation);
+    }
+
+    @Test
+    public void testReopenAfterRebuildWithShards() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("Sharded.java"), "public class Sharded { }");
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        IndexSearchers.release(IndexSearchers.acquire());
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), new IndexOptions().setShardCount(3));
+
+        IndexSearcher searcher = IndexSearchers.acquire();
+        try {
+            assertEquals(1, countClass(searcher, "Sharded"));
+        } finally {
+            IndexSearchers.release(searcher);
+        }
+    }
+
+    @Test
+    public void compareQueryLatencyWithOpenPerQuery() throws IOException, InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(sourceDirectory.resolve("Class" + i + ".java"), "public class Class" + i + " { }");
+        }
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            try (IndexReader reader = IndexShards.openReader(indexDirectory)) {
+                assertEquals(1, countClass(new IndexSearcher(reader), "Class" + (i % 20)));
+            }
+        }
+        long openPerQueryNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            IndexSearcher searcher = IndexSearchers.acquire();
+            try {
+                assertEquals(1, countClass(searcher, "Class" + (i % 20)));
+            } finally {
+                IndexSearchers.release(searcher);
+            }
+        }
+        long sharedNanos = System.nanoTime() - start;
+
+        logger.info("Запросов: {}, открытие индекса на каждый запрос: {} мкс/запрос, общий поисковик: {} мкс/запрос",
+                QUERIES, openPerQueryNanos / QUERIES / 1000, sharedNanos / QUERIES / 1000);
+    }
+
+    private static int countClass(IndexSearcher searcher, String name) throws IOException {
+        return searcher.count(new TermQuery(new Term(IndexSchema.contentField(SymbolType.CLASS), name)));
+    }
+}
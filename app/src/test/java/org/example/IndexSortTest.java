@@ -0,0 +1,136 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Индекс упорядочен по типу, файлу и строке: точные запросы возвращают результаты в этом порядке
+ * и завершают сбор страницы досрочно. Последний тест сравнивает сбор первой страницы
+ * по релевантности и в порядке индекса.
+ */
+public class IndexSortTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 300;
+    private static final int LITERALS_PER_FILE = 300;
+    private static final int PAGE = 100;
+    private static final int MEASURED_ROUNDS = 20;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testExactResultsComeInFileAndLineOrder() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("B.java"), """
+                public class B {
+                    int first = 0;
+                    int second = 0;
+                }
+                """);
+        Files.writeString(sourceDirectory.resolve("A.java"), """
+                public class A {
+                    int value = 1;
+                    int zero = 0;
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+        // Измененный файл попадает в новый сегмент, но порядок результатов сохраняется.
+        Files.writeString(sourceDirectory.resolve("A.java"), """
+                public class A {
+                    int zero = 0;
+                    int value = 1;
+                    int other = 0;
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), false);
+
+        CollectingResultSink sink = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest("0", SymbolType.INTEGER_LITERAL, MatchMode.EXACT, false), sink);
+        String a = sourceDirectory.resolve("A.java").toString();
+        String b = sourceDirectory.resolve("B.java").toString();
+        assertEquals(List.of(
+                new SymbolResult(SymbolType.INTEGER_LITERAL, "0", a, 2, null),
+                new SymbolResult(SymbolType.INTEGER_LITERAL, "0", a, 4, null),
+                new SymbolResult(SymbolType.INTEGER_LITERAL, "0", b, 2, null),
+                new SymbolResult(SymbolType.INTEGER_LITERAL, "0", b, 3, null)), sink.getResults());
+
+        try (IndexReader reader = IndexShards.openReader(indexDirectory)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                assertEquals(IndexSchema.INDEX_SORT, leaf.reader().getMetaData().sort());
+            }
+        }
+    }
+
+    @Test
+    public void compareIndexOrderWithRelevance() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        Query query = QueryExecutor.buildQuery("0", SymbolType.INTEGER_LITERAL, MatchMode.EXACT, true);
+        try (IndexReader reader = IndexShards.openReader(indexDirectory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            TopDocs sorted = searcher.search(query, PAGE, IndexSchema.INDEX_SORT);
+            assertEquals(PAGE, sorted.scoreDocs.length);
+            // Сбор завершен досрочно: точное число совпадений не подсчитывалось.
+            assertEquals(TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO, sorted.totalHits.relation());
+
+            long relevanceNanos = 0;
+            long indexOrderNanos = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                searcher.search(query, PAGE);
+                relevanceNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                searcher.search(query, PAGE, IndexSchema.INDEX_SORT);
+                indexOrderNanos += System.nanoTime() - start;
+            }
+            logger.info("Совпадений: {}, первые {}: по релевантности {} мкс, в порядке индекса {} мкс",
+                    searcher.count(query), PAGE, relevanceNanos / MEASURED_ROUNDS / 1000, indexOrderNanos / MEASURED_ROUNDS / 1000);
+        }
+    }
+
+    private void generateCorpus() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n    void run() {\n");
+            for (int j = 0; j < LITERALS_PER_FILE; j++) {
+                source.append("        call(0, ").append(j).append(");\n");
+            }
+            source.append("    }\n}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.MMapDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexWatcherTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void testChangesAreIndexedWhileWatching() throws Exception {
+        Files.writeString(sourceDirectory.resolve("Existing.java"), "public class Existing { }");
+
+        try (IndexWatcher watcher = IndexWatcher.start(sourceDirectory.toString())) {
+            assertEquals(sourceDirectory, watcher.getRoot());
+            assertEquals(1, countClasses("Existing"));
+
+            Path nested = Files.createDirectories(sourceDirectory.resolve("nested"));
+            Files.writeString(nested.resolve("Added.java"), "public class Added { }");
+            assertTrue(waitForCount("Added", 1));
+
+            Files.delete(sourceDirectory.resolve("Existing.java"));
+            assertTrue(waitForCount("Existing", 0));
+        }
+    }
+
+    private static boolean waitForCount(String className, int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (countClasses(className) == expected) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private static int countClasses(String className) throws IOException {
+        try (MMapDirectory directory = new MMapDirectory(JavaSourceIndexer.getIndexDirectory());
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return new IndexSearcher(reader).count(new TermQuery(new Term(IndexSchema.contentField(SymbolType.CLASS), className)));
+        }
+    }
+}
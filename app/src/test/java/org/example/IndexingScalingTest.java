@@ -0,0 +1,99 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка масштабирования индексации по числу потоков.
+ * Корпус собирается из нескольких копий исходников проекта, затем индексируется
+ * с 1, 2, 4, ... потоками вплоть до числа доступных ядер, а затем с отдельным шардом на каждое ядро.
+ */
+public class IndexingScalingTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int CORPUS_COPIES = 20;
+
+    @TempDir
+    Path corpusDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void throughputGrowsWithThreadCount() throws IOException, InterruptedException {
+        int fileCount = buildCorpus(Paths.get("src"), corpusDirectory);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+
+        // Прогрев JIT, чтобы первый замер не оказался заведомо медленнее.
+        JavaSourceIndexer.indexJavaSources(corpusDirectory.toString(), cores, true);
+        int expectedDocuments = countDocuments();
+        assertTrue(expectedDocuments > 0);
+
+        for (int threads : threadCounts) {
+            long start = System.nanoTime();
+            JavaSourceIndexer.indexJavaSources(corpusDirectory.toString(), threads, true);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(expectedDocuments, countDocuments());
+            logger.info("Потоков: {}, файлов: {}, время: {} с, пропускная способность: {} файлов/с",
+                    threads, fileCount, String.format("%.2f", seconds), String.format("%.1f", fileCount / seconds));
+        }
+
+        int shards = Math.max(2, cores);
+        long start = System.nanoTime();
+        JavaSourceIndexer.indexJavaSources(corpusDirectory.toString(),
+                new IndexOptions().setThreadCount(cores).setShardCount(shards).setFullRebuild(true));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(expectedDocuments, countDocuments());
+        logger.info("Потоков: {}, шардов: {}, файлов: {}, время: {} с, пропускная способность: {} файлов/с",
+                cores, shards, fileCount, String.format("%.2f", seconds), String.format("%.1f", fileCount / seconds));
+    }
+
+    private static int buildCorpus(Path source, Path target) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(source)) {
+            files = walk.filter(f -> f.toString().endsWith(".java")).toList();
+        }
+        for (int copy = 0; copy < CORPUS_COPIES; copy++) {
+            for (Path file : files) {
+                Path destination = target.resolve("copy" + copy).resolve(source.relativize(file));
+                Files.createDirectories(destination.getParent());
+                Files.copy(file, destination);
+            }
+        }
+        return files.size() * CORPUS_COPIES;
+    }
+
+    private static int countDocuments() throws IOException {
+        try (IndexReader reader = IndexShards.openReader(JavaSourceIndexer.getIndexDirectory())) {
+            return reader.numDocs();
+        }
+    }
+}
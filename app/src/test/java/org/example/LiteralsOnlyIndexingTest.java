@@ -0,0 +1,123 @@
+package org.example;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.MMapDirectory;
+import org.example.extractors.CompositeJavaListener;
+import org.example.extractors.JavaLiteralExtractor;
+import org.example.extractors.JavaStringExtractor;
+import org.example.extractors.JavaTokenLiteralExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiteralsOnlyIndexingTest {
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void testLexerExtractionMatchesParser() throws IOException {
+        String content = Files.readString(Paths.get("src/test/resources/TestClass.java")) + """
+                class Config {
+                    private static final String KEY = "db." + "url", OTHER = "x";
+                    private String[] names = {"a", "b"};
+                    void run() {
+                        String message = String.format("%d items", 10L);
+                        for (String s = "init"; s.isEmpty(); s = "next") { }
+                        char c = '\\n';
+                        double ratio = 0.5e3;
+                        boolean flag = false;
+                        call(value = "assigned");
+                    }
+                }
+                """;
+
+        JavaStringExtractor stringExtractor = new JavaStringExtractor();
+        JavaLiteralExtractor literalExtractor = new JavaLiteralExtractor();
+        JavaSourceIndexer.extractWithWalker(content, new CompositeJavaListener(stringExtractor, literalExtractor));
+
+        JavaTokenLiteralExtractor tokenExtractor = new JavaTokenLiteralExtractor();
+        tokenExtractor.extract(new JavaLexer(CharStreams.fromString(content)));
+
+        assertEquals(sorted(literalExtractor.getLiterals()), sorted(tokenExtractor.getLiterals()));
+        assertEquals(sorted(stringExtractor.getStrings()), sorted(tokenExtractor.getStrings()));
+    }
+
+    @Test
+    public void testAssignmentsAreNotConstants() {
+        String content = """
+                class Assignments {
+                    private String field;
+                    void run(String first, String second) {
+                        first = "plain";
+                        first = second = "chained";
+                        String local = first = "declared";
+                        String other = "kept", last = second = "tail";
+                        first += "compound";
+                        this.field = "member";
+                    }
+                }
+                """;
+
+        JavaStringExtractor stringExtractor = new JavaStringExtractor();
+        JavaSourceIndexer.extractWithWalker(content, new CompositeJavaListener(stringExtractor));
+
+        JavaTokenLiteralExtractor tokenExtractor = new JavaTokenLiteralExtractor();
+        tokenExtractor.extract(new JavaLexer(CharStreams.fromString(content)));
+
+        assertEquals(List.of("kept"), stringExtractor.getStrings().stream().map(JavaStringExtractor.ExtractedString::getValue).toList());
+        assertEquals(sorted(stringExtractor.getStrings()), sorted(tokenExtractor.getStrings()));
+    }
+
+    @Test
+    public void testLiteralsOnlyModeSkipsDeclarations() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("Secrets.java"),
+                "public class Secrets { private String token = \"s3cr3t\"; private int port = 8080; }");
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), new IndexOptions().setLiteralsOnly(true));
+        assertEquals(0, count("type", "Class"));
+        assertEquals(1, countContent("s3cr3t", "StringLiteral"));
+        assertEquals(1, countContent("s3cr3t", "StringConstant"));
+        assertEquals(1, countContent("8080", "IntegerLiteral"));
+
+        // Смена режима приводит к полной перестройке, хотя файлы не менялись.
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString());
+        assertEquals(1, countContent("Secrets", "Class"));
+        assertEquals(1, countContent("s3cr3t", "StringLiteral"));
+    }
+
+    private static int count(String field, String value) throws IOException {
+        try (MMapDirectory directory = new MMapDirectory(JavaSourceIndexer.getIndexDirectory());
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return new IndexSearcher(reader).count(new TermQuery(new Term(field, value)));
+        }
+    }
+
+    private static int countContent(String value, String type) throws IOException {
+        return count(IndexSchema.contentField(SymbolType.fromName(type)), value);
+    }
+
+    private static List<String> sorted(List<?> extracted) {
+        return extracted.stream().map(Object::toString).sorted().toList();
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedSearchTest {
+
+    private static final int FILES = 50;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testCursorWalksAllPages() throws IOException, InterruptedException {
+        indexClasses();
+
+        try (SearchCursor cursor = QueryExecutor.search("run", SymbolType.METHOD, false, false, 7)) {
+            assertEquals(FILES, cursor.count());
+            List<SymbolResult> results = cursor.stream().toList();
+            assertEquals(FILES, results.size());
+            assertEquals(FILES, new HashSet<>(results).size());
+            for (SymbolResult result : results) {
+                assertEquals(SymbolType.METHOD, result.type());
+                assertEquals("run", result.content());
+                assertEquals(1, result.line());
+                assertNull(result.varType());
+            }
+        }
+    }
+
+    @Test
+    public void testSkipReturnsRequestedPage() throws IOException, InterruptedException {
+        indexClasses();
+
+        List<SymbolResult> all;
+        try (Stream<SymbolResult> stream = QueryExecutor.search("run", SymbolType.METHOD, false, false, 1000).stream()) {
+            all = stream.toList();
+        }
+
+        try (SearchCursor cursor = QueryExecutor.search("run", SymbolType.METHOD, false, false, 10)) {
+            assertEquals(20, cursor.skip(20));
+            assertEquals(all.subList(20, 30), cursor.stream().limit(10).toList());
+            assertEquals(20, cursor.skip(100));
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    @Test
+    public void testFindPrintsOnlyRequestedPage() throws IOException, InterruptedException {
+        indexClasses();
+        StringWriter out = new StringWriter();
+        QueryExecutor.execute(new SearchRequest("run", SymbolType.METHOD, false, false, 5, 10), new ConsoleResultSink(new PrintWriter(out)));
+        String logOutput = out.toString();
+
+        assertTrue(logOutput.contains("Найдено совпадений c run: " + FILES));
+        assertTrue(logOutput.contains("Страница 10, совпадения 46-50 из " + FILES));
+        assertEquals(5, logOutput.lines().filter(line -> line.startsWith("Method: run")).count());
+    }
+
+    @Test
+    public void testPagesWithDuplicatesNeitherOverlapNorSkip() throws IOException, InterruptedException {
+        // Два одинаковых литерала в строке дают два одинаковых совпадения подряд.
+        StringBuilder source = new StringBuilder("public class Twice {\n    void run() {\n");
+        int lines = 10;
+        for (int i = 0; i < lines; i++) {
+            source.append("        log(\"dup\", \"dup\");\n");
+        }
+        source.append("    }\n}\n");
+        Files.writeString(sourceDirectory.resolve("Twice.java"), source);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        for (MatchMode mode : new MatchMode[]{MatchMode.EXACT, MatchMode.REGEX}) {
+            String query = mode == MatchMode.REGEX ? "^du+p$" : "dup";
+            CollectingResultSink all = new CollectingResultSink();
+            QueryExecutor.execute(new SearchRequest(query, SymbolType.STRING_LITERAL, mode, true), all);
+            assertEquals(2 * lines, all.getTotalHits(), mode.toString());
+            assertEquals(lines, all.getResults().size(), mode.toString());
+
+            List<SymbolResult> paged = new ArrayList<>();
+            for (int page = 1; page <= (2 * lines + 2) / 3; page++) {
+                CollectingResultSink sink = new CollectingResultSink();
+                QueryExecutor.execute(new SearchRequest(query, SymbolType.STRING_LITERAL, mode, true, 3, page), sink);
+                assertEquals(2 * lines, sink.getTotalHits(), mode.toString());
+                paged.addAll(sink.getResults());
+            }
+            assertEquals(all.getResults(), paged, mode.toString());
+        }
+    }
+
+    private void indexClasses() throws IOException, InterruptedException {
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(sourceDirectory.resolve("Class" + i + ".java"), "public class Class" + i + " { void run() { } }");
+        }
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryCacheTest {
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        QueryCache cache = new QueryCache(2, 100);
+        SearchRequest first = new SearchRequest("a", SymbolType.CLASS, false, false);
+        SearchRequest second = new SearchRequest("b", SymbolType.CLASS, false, false);
+        SearchRequest third = new SearchRequest("c", SymbolType.CLASS, false, false);
+
+        cache.put(first, 1, new QueryCache.Entry(0, List.of()));
+        cache.put(second, 1, new QueryCache.Entry(0, List.of()));
+        assertNotNull(cache.get(first, 1));
+        cache.put(third, 1, new QueryCache.Entry(0, List.of()));
+
+        assertNotNull(cache.get(first, 1));
+        assertNull(cache.get(second, 1));
+        assertNotNull(cache.get(third, 1));
+
+        QueryCache.Statistics statistics = cache.getStatistics();
+        assertEquals(3, statistics.hits());
+        assertEquals(1, statistics.misses());
+        assertEquals(1, statistics.evictions());
+
+        // Новое поколение индекса отбрасывает все записи.
+        assertNull(cache.get(first, 2));
+        assertEquals(2, cache.getStatistics().invalidations());
+        assertEquals(0, cache.getStatistics().entries());
+    }
+
+    @Test
+    public void testCacheIsBoundedByResultCount() {
+        QueryCache cache = new QueryCache(10, 3);
+        SymbolResult result = new SymbolResult(SymbolType.CLASS, "A", "A.java", 1, null);
+
+        cache.put(new SearchRequest("a", SymbolType.CLASS, false, false), 1, new QueryCache.Entry(2, List.of(result, result)));
+        cache.put(new SearchRequest("b", SymbolType.CLASS, false, false), 1, new QueryCache.Entry(2, List.of(result, result)));
+
+        assertEquals(1, cache.getStatistics().entries());
+        assertEquals(2, cache.getStatistics().results());
+        assertNull(cache.get(new SearchRequest("a", SymbolType.CLASS, false, false), 1));
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedUntilIndexChanges() throws IOException, InterruptedException {
+        Path file = sourceDirectory.resolve("Cached.java");
+        Files.writeString(file, "public class Cached { }");
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        SearchRequest request = new SearchRequest("Cached", SymbolType.CLASS, false, true);
+        QueryCache.Statistics before = QueryExecutor.getCacheStatistics();
+
+        CollectingResultSink first = new CollectingResultSink();
+        QueryExecutor.execute(request, first);
+        CollectingResultSink second = new CollectingResultSink();
+        QueryExecutor.execute(request, second);
+
+        assertEquals(1, second.getTotalHits());
+        assertEquals(first.getResults(), second.getResults());
+        assertEquals(before.hits() + 1, QueryExecutor.getCacheStatistics().hits());
+
+        Files.writeString(file, "public class Renamed { }");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString());
+
+        CollectingResultSink afterCommit = new CollectingResultSink();
+        QueryExecutor.execute(request, afterCommit);
+        assertEquals(0, afterCommit.getTotalHits());
+        assertTrue(afterCommit.getResults().isEmpty());
+    }
+}
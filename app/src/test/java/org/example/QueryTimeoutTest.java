@@ -0,0 +1,233 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Бюджет времени и отмена запросов: остановленный запрос возвращает найденное до остановки
+ * и не попадает в кеш; число раскрытий неточного запроса ограничено.
+ */
+public class QueryTimeoutTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 30;
+    private static final int LITERALS_PER_FILE = 200;
+    private static final int MEASURED_ROUNDS = 10;
+
+    /** Совпадает со всеми литералами корпуса и проверяет каждый по хранимому значению. */
+    private static final SearchRequest FULL_SCAN = new SearchRequest("[a-z]", SymbolType.STRING_LITERAL, MatchMode.REGEX, false);
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void restoreDefaults() {
+        QueryExecutor.setTimeout(QueryExecutor.DEFAULT_TIMEOUT);
+        QueryExecutor.setMaxFuzzyExpansions(QueryExecutor.DEFAULT_MAX_FUZZY_EXPANSIONS);
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testExpiredBudgetReturnsPartialResults() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        CollectingResultSink complete = new CollectingResultSink();
+        assertEquals(FILES * LITERALS_PER_FILE, QueryExecutor.execute(FULL_SCAN, complete, QueryBudget.unlimited()));
+        assertTrue(complete.isComplete());
+        IndexSearchers.refresh();
+
+        CollectingResultSink partial = new CollectingResultSink();
+        QueryExecutor.execute(FULL_SCAN, partial, QueryBudget.of(Duration.ZERO));
+        assertFalse(partial.isComplete());
+        assertFalse(partial.isCancelled());
+        assertTrue(partial.getResults().size() < FILES * LITERALS_PER_FILE);
+
+        StringWriter json = new StringWriter();
+        QueryExecutor.execute(FULL_SCAN, new JsonLinesResultSink(json), QueryBudget.of(Duration.ZERO));
+        assertTrue(json.toString().endsWith("{\"incomplete\":\"timeout\"}\n"));
+    }
+
+    @Test
+    public void testCancellationFromAnotherThreadKeepsFirstPage() throws Exception {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        // Получатель задерживает первый результат, пока другой поток не отменит запрос:
+        // первая страница уже собрана и выдается целиком, следующие не запрашиваются.
+        QueryBudget budget = QueryBudget.unlimited();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CollectingResultSink sink = new CollectingResultSink() {
+            @Override
+            public synchronized void accept(SymbolResult result) {
+                if (started.getCount() > 0) {
+                    started.countDown();
+                    try {
+                        cancelled.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.accept(result);
+            }
+        };
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread query = new Thread(() -> {
+            try {
+                QueryExecutor.execute(FULL_SCAN, sink, budget);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        query.start();
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        budget.cancel();
+        cancelled.countDown();
+        query.join(30_000);
+
+        assertNull(failure.get());
+        assertFalse(sink.isComplete());
+        assertTrue(sink.isCancelled());
+        assertEquals(SearchCursor.DEFAULT_PAGE_SIZE, sink.getResults().size());
+
+        // Неполный ответ не кешируется: повторный запрос выполняется заново и возвращает все результаты.
+        long misses = QueryExecutor.getCacheStatistics().misses();
+        CollectingResultSink again = new CollectingResultSink();
+        QueryExecutor.execute(FULL_SCAN, again);
+        assertTrue(again.isComplete());
+        assertEquals(FILES * LITERALS_PER_FILE, again.getResults().size());
+        assertEquals(misses + 1, QueryExecutor.getCacheStatistics().misses());
+    }
+
+    @Test
+    public void testCancelledBatchSkipsRemainingRequests() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        QueryBudget budget = QueryBudget.unlimited();
+        budget.cancel();
+        QueryExecutor.BatchStatistics statistics = QueryExecutor.executeBatch(List.of(FULL_SCAN, FULL_SCAN), new CollectingResultSink(), budget);
+        assertEquals(0, statistics.queries());
+    }
+
+    @Test
+    public void testOnlyTermExpansionWrapsSegments() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        IndexSearcher searcher = IndexSearchers.acquire();
+        try {
+            // Ограниченный по времени поисковик точного запроса читает те же сегменты, и кеш запросов Lucene работает.
+            assertSame(searcher.getIndexReader(), IndexSearchers.withTimeout(searcher, QueryBudget.unlimited()).getIndexReader());
+            assertNotSame(searcher.getIndexReader(), IndexSearchers.withExitableReader(searcher, QueryBudget.unlimited()).getIndexReader());
+        } finally {
+            IndexSearchers.release(searcher);
+        }
+
+        // Раскрытие неточного запроса с истекшим бюджетом останавливается.
+        QueryBudget expired = QueryBudget.unlimited();
+        expired.cancel();
+        CollectingResultSink fuzzy = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest("valuee", SymbolType.STRING_LITERAL, MatchMode.FUZZY, false), fuzzy, expired);
+        assertFalse(fuzzy.isComplete());
+    }
+
+    @Test
+    public void testFuzzyExpansionsAreCapped() throws IOException, InterruptedException {
+        // Все замены одной буквы в слове codes находятся на расстоянии 1 от запроса.
+        StringBuilder source = new StringBuilder("public class Words {\n    void run() {\n");
+        String word = "codes";
+        for (int i = 0; i < word.length(); i++) {
+            for (char c = 'a'; c <= 'z'; c++) {
+                if (c != word.charAt(i)) {
+                    source.append("        log(\"").append(word, 0, i).append(c).append(word.substring(i + 1)).append("\");\n");
+                }
+            }
+        }
+        source.append("    }\n}\n");
+        Files.writeString(sourceDirectory.resolve("Words.java"), source);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        SearchRequest request = new SearchRequest(word, SymbolType.STRING_LITERAL, MatchMode.FUZZY, false);
+        CollectingResultSink defaults = new CollectingResultSink();
+        QueryExecutor.execute(request, defaults);
+        assertEquals(QueryExecutor.DEFAULT_MAX_FUZZY_EXPANSIONS, defaults.getTotalHits());
+
+        QueryExecutor.setMaxFuzzyExpansions(3);
+        CollectingResultSink capped = new CollectingResultSink();
+        QueryExecutor.execute(request, capped);
+        assertEquals(3, capped.getTotalHits());
+        assertEquals(3, capped.getResults().stream().map(SymbolResult::content).distinct().count());
+
+        assertThrows(IllegalArgumentException.class, () -> QueryExecutor.setMaxFuzzyExpansions(0));
+    }
+
+    @Test
+    public void compareBudgetedAndFullScan() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        long fullNanos = 0;
+        long budgetedNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            IndexSearchers.refresh();
+            long start = System.nanoTime();
+            QueryExecutor.execute(FULL_SCAN, new CollectingResultSink(), QueryBudget.unlimited());
+            fullNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            QueryExecutor.execute(FULL_SCAN, new CollectingResultSink(), QueryBudget.of(Duration.ofMillis(1)));
+            budgetedNanos += System.nanoTime() - start;
+        }
+        logger.info("Литералов: {}, полный перебор {} мкс, с бюджетом 1 мс {} мкс", FILES * LITERALS_PER_FILE,
+                fullNanos / MEASURED_ROUNDS / 1000, budgetedNanos / MEASURED_ROUNDS / 1000);
+    }
+
+    private void generateCorpus() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n    void run() {\n");
+            for (int j = 0; j < LITERALS_PER_FILE; j++) {
+                source.append("        log(\"").append(randomWord(random)).append(j).append("\");\n");
+            }
+            source.append("    }\n}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[3 + random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,190 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поиск по регулярному выражению: построение условия на триграммы, его необходимость
+ * для совпадения, поиск через QueryExecutor и сравнение с проверкой всех литералов.
+ */
+public class RegexSearchTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 300;
+    private static final int LITERALS_PER_FILE = 300;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testRegexIsCompiledToTrigrams() {
+        assertEquals(and("jdb", "dbc", "bc:", ":54", "543", "432"), RegexTrigrams.condition("jdbc:.*:5432"));
+        assertEquals(new RegexTrigrams.Or(List.of(and("foo", "oob", "oba", "bar", "ari"), and("bar", "arb", "rba", "ari"))),
+                RegexTrigrams.condition("(foo|bar)bari"));
+        assertEquals(and("abc"), RegexTrigrams.condition("x*ABC[0-9]+"));
+        assertEquals(RegexTrigrams.ANY, RegexTrigrams.condition(".*"));
+        assertEquals(RegexTrigrams.ANY, RegexTrigrams.condition("ab|\\d+"));
+        assertEquals(RegexTrigrams.ANY, RegexTrigrams.condition("(?x) a b c"));
+    }
+
+    @Test
+    public void testTrigramConditionIsNecessary() {
+        List<String> regexes = List.of("abc", "ab.*ca", "(ab|ba)c+", "a[bc]ab", "^cab?a", "(?i)ABCA", "b{2,}ca",
+                "\\Qa.b\\E", "(?:abc)?bca", "(?<=a)bcb", "a(?!b)cab", "[^a]bc", "c\\b|abab");
+        Random random = new Random(7);
+        for (String regex : regexes) {
+            Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            RegexTrigrams.Condition condition = RegexTrigrams.condition(regex);
+            for (int i = 0; i < 2000; i++) {
+                String text = randomText(random);
+                if (pattern.matcher(text).find()) {
+                    assertTrue(holds(condition, new HashSet<>(RegexTrigrams.trigrams(text))), regex + " / " + text);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFindStringLiteralsByRegex() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("Config.java"), """
+                public class Config {
+                    String primary = "jdbc:postgresql://db:5432/app";
+                    void connect() {
+                        open("jdbc:mysql://db:3306/app");
+                        open("JDBC:POSTGRESQL://REPLICA:5432/APP");
+                    }
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        CollectingResultSink insensitive = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest("jdbc:.*:5432", SymbolType.STRING_LITERAL, MatchMode.REGEX, false), insensitive);
+        assertEquals(2, insensitive.getTotalHits());
+
+        CollectingResultSink sensitive = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest("jdbc:.*:5432", SymbolType.STRING_LITERAL, MatchMode.REGEX, true), sensitive);
+        assertEquals(List.of(new SymbolResult(SymbolType.STRING_LITERAL, "jdbc:postgresql://db:5432/app",
+                sourceDirectory.resolve("Config.java").toString(), 2, null)), sensitive.getResults());
+
+        // Для типов без триграмм проверяются все значения типа.
+        CollectingResultSink classes = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest("^Conf", SymbolType.CLASS, MatchMode.REGEX, true), classes);
+        assertEquals(1, classes.getTotalHits());
+    }
+
+    @Test
+    public void compareTrigramCandidatesWithFullScan() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        String regex = "jdbc:.*:5432";
+        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        Query trigrams = QueryExecutor.buildQuery(regex, SymbolType.STRING_LITERAL, MatchMode.REGEX, false);
+        Query fullScan = new RegexVerifyingQuery(new TermQuery(new Term(IndexSchema.TYPE, SymbolType.STRING_LITERAL.getName())), pattern);
+
+        try (IndexReader reader = IndexShards.openReader(indexDirectory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            assertEquals(FILES / 10, searcher.count(trigrams));
+            assertEquals(searcher.count(fullScan), searcher.count(trigrams));
+
+            long trigramNanos = 0;
+            long fullScanNanos = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                searcher.count(trigrams);
+                trigramNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                searcher.count(fullScan);
+                fullScanNanos += System.nanoTime() - start;
+            }
+            logger.info("Документов: {}, запрос /{}/: по триграммам {} мкс, проверка всех литералов {} мкс",
+                    reader.numDocs(), regex, trigramNanos / MEASURED_ROUNDS / 1000, fullScanNanos / MEASURED_ROUNDS / 1000);
+        }
+    }
+
+    private static RegexTrigrams.Condition and(String... trigrams) {
+        if (trigrams.length == 1) {
+            return new RegexTrigrams.Trigram(trigrams[0]);
+        }
+        return new RegexTrigrams.And(Arrays.stream(trigrams).<RegexTrigrams.Condition>map(RegexTrigrams.Trigram::new).toList());
+    }
+
+    private static boolean holds(RegexTrigrams.Condition condition, Set<String> trigrams) {
+        return switch (condition) {
+            case RegexTrigrams.Any any -> true;
+            case RegexTrigrams.Trigram trigram -> trigrams.contains(trigram.value());
+            case RegexTrigrams.And and -> and.conditions().stream().allMatch(child -> holds(child, trigrams));
+            case RegexTrigrams.Or or -> or.conditions().stream().anyMatch(child -> holds(child, trigrams));
+        };
+    }
+
+    private static String randomText(Random random) {
+        String alphabet = "abcABC.";
+        char[] text = new char[random.nextInt(12)];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(text);
+    }
+
+    private void generateCorpus() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n    void run() {\n");
+            for (int j = 0; j < LITERALS_PER_FILE; j++) {
+                source.append("        log(\"").append(randomWord(random)).append(' ').append(randomWord(random)).append("\");\n");
+            }
+            if (i % 10 == 0) {
+                source.append("        open(\"jdbc:postgresql://host").append(i).append(":5432/db\");\n");
+            }
+            source.append("        open(\"jdbc:mysql://host").append(i).append(":3306/db\");\n");
+            source.append("    }\n}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[3 + random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,119 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Нагрузочная проверка общего пула поиска: много клиентов одновременно выполняют запросы
+ * к индексу из нескольких шардов. Проверяется, что результаты не зависят от нагрузки
+ * и что число потоков поиска не растет; выводятся пропускная способность и задержки.
+ */
+public class SearchLoadTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int CLIENTS = 16;
+    private static final int QUERIES_PER_CLIENT = 200;
+    private static final int FILES = 200;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void concurrentQueriesShareBoundedExecutor() throws Exception {
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(sourceDirectory.resolve("Class" + i + ".java"),
+                    "public class Class" + i + " { void run() { int value = " + i + "; } void stop() { } }");
+        }
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), new IndexOptions().setShardCount(4).setFullRebuild(true));
+
+        List<Query> queries = List.of(
+                QueryExecutor.buildQuery("run", SymbolType.METHOD, false, false),
+                QueryExecutor.buildQuery("Class7", SymbolType.CLASS, false, true),
+                QueryExecutor.buildQuery("stpo", SymbolType.METHOD, true, false),
+                QueryExecutor.buildQuery("value", SymbolType.LOCAL_VARIABLE, false, false));
+        int[] expected = {FILES, 1, FILES, FILES};
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long[] latencies = new long[CLIENTS * QUERIES_PER_CLIENT];
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int offset = client * QUERIES_PER_CLIENT;
+                results.add(clients.submit(() -> {
+                    for (int i = 0; i < QUERIES_PER_CLIENT; i++) {
+                        int q = (offset + i) % queries.size();
+                        long queryStart = System.nanoTime();
+                        assertEquals(expected[q], search(queries.get(q)));
+                        latencies[offset + i] = System.nanoTime() - queryStart;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long searchThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("search-"))
+                .count();
+        assertTrue(searchThreads <= IndexSearchers.THREAD_COUNT);
+
+        Arrays.sort(latencies);
+        logger.info("Клиентов: {}, запросов: {}, {} запросов/с, задержка p50: {} мкс, p99: {} мкс, потоков поиска: {}",
+                CLIENTS, latencies.length, String.format("%.0f", latencies.length / seconds),
+                latencies[latencies.length / 2] / 1000, latencies[latencies.length * 99 / 100] / 1000, searchThreads);
+    }
+
+    private static int search(Query query) throws IOException {
+        IndexSearcher searcher = IndexSearchers.acquire();
+        try {
+            TopDocs hits = searcher.search(query, 1000);
+            SymbolDocumentReader documents = new SymbolDocumentReader(searcher);
+            for (ScoreDoc hit : hits.scoreDocs) {
+                assertNotNull(documents.document(hit.doc).get(IndexSchema.FILE));
+            }
+            return hits.scoreDocs.length;
+        } finally {
+            IndexSearchers.release(searcher);
+        }
+    }
+}
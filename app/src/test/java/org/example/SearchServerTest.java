@@ -0,0 +1,223 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сервер поиска: индексация, поиск, пакет и состояние через HTTP, ответы на ошибки
+ * и задержки под нагрузкой от {@link LoadTestClient}.
+ */
+public class SearchServerTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 100;
+    private static final int METHODS_PER_FILE = 20;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    private SearchServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+        server = SearchServer.start(0);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        client.close();
+        server.close();
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testIndexFindAndStatus() throws IOException, InterruptedException {
+        generateCorpus();
+        HttpResponse<String> indexed = postJson("/index?path=" + encode(sourceDirectory.toString()) + "&full=true");
+        assertEquals(200, indexed.statusCode(), indexed.body());
+
+        HttpResponse<String> found = get("/find?type=method&q=handle7");
+        assertEquals(200, found.statusCode());
+        assertEquals("application/x-ndjson; charset=utf-8", found.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals("1", found.headers().firstValue("X-Total-Hits").orElseThrow());
+        assertEquals("{\"type\":\"Method\",\"content\":\"handle7\",\"file\":"
+                + quote(sourceDirectory.resolve("Service7.java").toString()) + ",\"line\":4,\"varType\":null}\n", found.body());
+
+        HttpResponse<String> page = get("/find?type=class&q=" + encode("Service1") + "&mode=prefix&limit=5&page=2");
+        assertEquals("11", page.headers().firstValue("X-Total-Hits").orElseThrow());
+        assertEquals(5, page.body().lines().count());
+
+        HttpResponse<String> status = get("/status");
+        assertEquals(200, status.statusCode());
+        assertTrue(status.body().contains("\"documents\":"));
+        assertFalse(status.body().contains("\"documents\":null"));
+        assertTrue(status.body().contains("\"indexing\":false"));
+    }
+
+    @Test
+    public void testBatchSeparatesAnswers() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        HttpResponse<String> response = post("/batch", "type=method&q=handle3\n# комментарий\ntype=class&q=Service4&mode=prefix&limit=2\n");
+        assertEquals(200, response.statusCode());
+        List<String> lines = response.body().lines().toList();
+        assertEquals(List.of(
+                "{\"query\":\"handle3\",\"type\":\"Method\",\"mode\":\"exact\",\"totalHits\":1}",
+                "{\"query\":\"Service4\",\"type\":\"Class\",\"mode\":\"prefix\",\"totalHits\":11}"),
+                lines.stream().filter(line -> line.startsWith("{\"query\"")).toList());
+        assertEquals(1 + 1 + 1 + 2 + 1, lines.size());
+        assertTrue(lines.get(lines.size() - 1).startsWith("{\"queries\":2,\"failed\":0,\"incomplete\":0,\"totalHits\":12,"));
+    }
+
+    @Test
+    public void testErrors() throws IOException, InterruptedException {
+        HttpResponse<String> unknownType = get("/find?type=unknown&q=x");
+        assertEquals(400, unknownType.statusCode());
+        assertEquals("{\"error\":\"Неизвестный тип для поиска: unknown\"}\n", unknownType.body());
+
+        assertEquals(400, get("/find?type=method").statusCode());
+        assertEquals(400, get("/find?type=stringliteral&q=" + encode("([") + "&mode=regex").statusCode());
+        assertEquals(400, get("/find?type=method&q=x&limit=0").statusCode());
+        assertEquals(400, post("/batch", "type=method&q=x\ntype=nothing&q=y\n").statusCode());
+        assertEquals(400, postJson("/index").statusCode());
+        assertEquals(405, get("/index?path=src").statusCode());
+    }
+
+    @Test
+    public void testConsoleAndServerShareIndexing() throws IOException, InterruptedException {
+        generateCorpus();
+        // Наблюдение, запущенное командой консоли index --watch, видно серверу.
+        assertTrue(Indexing.tryIndex(sourceDirectory.toString(), new IndexOptions(), true));
+        assertTrue(get("/status").body().contains("\"watching\":" + quote(sourceDirectory.toString())));
+
+        // Индексация по запросу к серверу прекращает его до перестройки индекса.
+        assertEquals(200, postJson("/index?path=" + encode(sourceDirectory.toString()) + "&full=true").statusCode());
+        assertNull(Indexing.getWatchedRoot());
+        assertTrue(get("/status").body().contains("\"watching\":null"));
+        assertEquals("1", get("/find?type=method&q=handle7").headers().firstValue("X-Total-Hits").orElseThrow());
+    }
+
+    @Test
+    public void testRejectsCrossSiteRequests() throws IOException, InterruptedException {
+        generateCorpus();
+        // Форма с другого сайта: простой POST без JSON не запускает индексацию.
+        HttpResponse<String> form = client.send(HttpRequest.newBuilder(uri("/index?path=" + encode(sourceDirectory.toString()) + "&full=true"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(415, form.statusCode());
+        assertEquals(415, post("/index?path=" + encode(sourceDirectory.toString()), "").statusCode());
+
+        HttpResponse<String> foreignOrigin = client.send(HttpRequest.newBuilder(uri("/find?type=method&q=x"))
+                .header("Origin", "http://example.com").GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, foreignOrigin.statusCode());
+        HttpResponse<String> localOrigin = client.send(HttpRequest.newBuilder(uri("/status"))
+                .header("Origin", "http://localhost:" + server.getPort()).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, localOrigin.statusCode());
+
+        // Подмена DNS: запрос приходит на 127.0.0.1, но с именем чужого сайта в Host.
+        assertTrue(rawGet("/status", "evil.example:" + server.getPort()).startsWith("HTTP/1.1 403"));
+        assertTrue(rawGet("/status", "localhost:" + server.getPort()).startsWith("HTTP/1.1 200"));
+    }
+
+    @Test
+    public void measureLatencyUnderLoad() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            queries.add("type=method&q=handle" + i);
+            queries.add("type=class&q=Service" + i + "&mode=prefix&limit=10");
+        }
+        // Прогрев: JIT, соединения и кеш запросов.
+        LoadTestClient.run(server.getUri(), queries, 2000, 16, 0);
+
+        LoadTestClient.Report saturated = LoadTestClient.run(server.getUri(), queries, 5000, 16, 0);
+        assertEquals(0, saturated.errors());
+        logger.info("Без ограничения частоты: {}", saturated);
+
+        LoadTestClient.Report paced = LoadTestClient.run(server.getUri(), queries, 3000, 16, 1000);
+        assertEquals(0, paced.errors());
+        logger.info("1000 запросов/с: {}", paced);
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> postJson(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{}")).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * HttpClient не позволяет задать заголовок Host, поэтому запрос отправляется через сокет.
+     */
+    private String rawGet(String path, String host) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + path + " HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private URI uri(String path) {
+        return server.getUri().resolve(path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void generateCorpus() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n");
+            source.append("    void run() {\n    }\n");
+            source.append("    void handle").append(i).append("() {\n    }\n");
+            for (int j = 0; j < METHODS_PER_FILE; j++) {
+                source.append("    void process").append(j).append("() {\n    }\n");
+            }
+            source.append("}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedIndexingTest {
+
+    private static final int SHARDS = 4;
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void testShardsAreSearchedTogether() throws IOException, InterruptedException {
+        for (int i = 0; i < 40; i++) {
+            Files.writeString(sourceDirectory.resolve("Class" + i + ".java"), "public class Class" + i + " { }");
+        }
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), new IndexOptions().setShardCount(SHARDS));
+        assertEquals(SHARDS, IndexShards.existingShardCount(indexDirectory));
+        assertEquals(40, countType("Class"));
+        for (int i = 0; i < 40; i++) {
+            assertEquals(1, countContent("Class" + i));
+        }
+
+        // Инкрементальные изменения попадают в шард файла.
+        Path changed = sourceDirectory.resolve("Class7.java");
+        Files.writeString(changed, "public class Renamed { }");
+        Files.setLastModifiedTime(changed, FileTime.fromMillis(Files.getLastModifiedTime(changed).toMillis() + 1000));
+        Files.delete(sourceDirectory.resolve("Class8.java"));
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), new IndexOptions().setShardCount(SHARDS));
+        assertEquals(39, countType("Class"));
+        assertEquals(0, countContent("Class7"));
+        assertEquals(1, countContent("Renamed"));
+        assertEquals(0, countContent("Class8"));
+    }
+
+    @Test
+    public void testInvalidCountsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IndexOptions().setShardCount(0));
+        assertThrows(IllegalArgumentException.class, () -> new IndexOptions().setShardCount(-2));
+        assertThrows(IllegalArgumentException.class, () -> new IndexOptions().setThreadCount(0));
+    }
+
+    @Test
+    public void testChangingShardCountRebuildsIndex() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("Single.java"), "public class Single { }");
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), new IndexOptions().setShardCount(SHARDS));
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), new IndexOptions());
+
+        assertEquals(1, IndexShards.existingShardCount(indexDirectory));
+        assertFalse(Files.exists(indexDirectory.resolve("shard-0")));
+        assertEquals(1, countContent("Single"));
+    }
+
+    @Test
+    public void testFailedRefreshKeepsPreviousReaders(@TempDir Path indexRoot) throws IOException {
+        for (int shard = 0; shard < 2; shard++) {
+            addDocument(IndexShards.shardPath(indexRoot, shard, 2), "before");
+        }
+        ShardedSearcherManager manager = new ShardedSearcherManager(indexRoot, Runnable::run);
+        IndexSearcher searcher = manager.acquire();
+        LeafReader firstShardSegment = searcher.getIndexReader().leaves().get(0).reader();
+        manager.release(searcher);
+
+        // Первый шард изменился, а второй открыть нельзя: обновление не применяется частично.
+        addDocument(IndexShards.shardPath(indexRoot, 0, 2), "after");
+        try (Stream<Path> files = Files.list(IndexShards.shardPath(indexRoot, 1, 2))) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        assertThrows(IOException.class, manager::maybeRefresh);
+        searcher = manager.acquire();
+        try {
+            assertEquals(2, searcher.count(new TermQuery(new Term("id", "before"))));
+            assertEquals(0, searcher.count(new TermQuery(new Term("id", "after"))));
+        } finally {
+            manager.release(searcher);
+        }
+
+        // Закрытие менеджера освобождает все читатели: открытый при неудачном обновлении читатель не утек.
+        manager.close();
+        assertEquals(0, firstShardSegment.getRefCount());
+    }
+
+    private static void addDocument(Path shard, String id) throws IOException {
+        try (FSDirectory directory = FSDirectory.open(shard);
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            Document document = new Document();
+            document.add(new StringField("id", id, Field.Store.NO));
+            writer.addDocument(document);
+        }
+    }
+
+    private static int countType(String type) throws IOException {
+        return count(new Term(IndexSchema.TYPE, type));
+    }
+
+    private static int countContent(String className) throws IOException {
+        return count(new Term(IndexSchema.contentField(SymbolType.CLASS), className));
+    }
+
+    private static int count(Term term) throws IOException {
+        try (IndexReader reader = IndexShards.openReader(JavaSourceIndexer.getIndexDirectory())) {
+            return new IndexSearcher(reader).count(new TermQuery(term));
+        }
+    }
+}
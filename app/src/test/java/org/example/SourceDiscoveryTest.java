@@ -0,0 +1,78 @@
+package org.example;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.MMapDirectory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SourceDiscoveryTest {
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @Test
+    public void testDefaultExcludesSkipBuildOutput() throws IOException, InterruptedException {
+        createFile("src/main/java/Main.java");
+        createFile("src/main/java/notes.txt");
+        createFile("target/generated/Generated.java");
+        createFile("module/build/Built.java");
+        createFile(".git/hooks/Hook.java");
+
+        List<Path> found = new ArrayList<>();
+        new SourceDiscovery(sourceDirectory, SourceDiscovery.DEFAULT_INCLUDES, SourceDiscovery.DEFAULT_EXCLUDES)
+                .walk(found::add);
+
+        assertEquals(List.of(sourceDirectory.resolve("src/main/java/Main.java")), found);
+    }
+
+    @Test
+    public void testCustomGlobs() throws IOException, InterruptedException {
+        createFile("api/Api.java");
+        createFile("impl/Impl.java");
+        createFile("impl/ImplTest.java");
+
+        List<Path> found = new ArrayList<>();
+        new SourceDiscovery(sourceDirectory, List.of("impl/**.java"), List.of("**Test.java"))
+                .walk(found::add);
+
+        assertEquals(List.of(sourceDirectory.resolve("impl/Impl.java")), found);
+    }
+
+    @Test
+    public void testSmallQueueIndexesAllFiles() throws IOException, InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            Files.writeString(createFile("pkg" + (i % 5) + "/Class" + i + ".java"), "public class Class" + i + " { }");
+        }
+
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(),
+                new IndexOptions().setFullRebuild(true).setThreadCount(2).setQueueCapacity(1));
+
+        try (MMapDirectory directory = new MMapDirectory(indexDirectory);
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            assertEquals(50, reader.numDocs());
+        }
+    }
+
+    private Path createFile(String relativePath) throws IOException {
+        Path file = sourceDirectory.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, "");
+    }
+}
@@ -0,0 +1,182 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поиск имен по префиксу и по частям camelCase: разбиение имен, поиск через QueryExecutor
+ * и сравнение с перебором словаря терминов.
+ */
+public class SymbolNameSearchTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 300;
+    private static final int METHODS_PER_FILE = 100;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private static final String[] WORDS = {"get", "set", "test", "field", "name", "value", "parse", "build",
+            "index", "query", "search", "result", "cache", "file", "line", "type", "token", "reader", "writer", "text"};
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testNamesAreSplitIntoHumps() {
+        assertEquals(List.of("get", "Test", "Field"), CamelHumps.split("getTestField"));
+        assertEquals(List.of("XML", "Parser"), CamelHumps.split("XMLParser"));
+        assertEquals(List.of("MAX", "VALUE"), CamelHumps.split("MAX_VALUE"));
+        assertEquals(List.of("sha", "256", "sum"), CamelHumps.split("sha256sum"));
+        assertEquals(List.of("g", "T", "F"), CamelHumps.splitQuery("gTF"));
+        assertEquals(List.of("X", "M", "L"), CamelHumps.splitQuery("XML"));
+        assertEquals("g gt gtf t tf f", CamelHumps.initialsTokens("getTestField"));
+
+        assertTrue(CamelHumps.matches(CamelHumps.split("getTestField"), List.of("get", "Te", "F"), false));
+        assertTrue(CamelHumps.matches(CamelHumps.split("getTestField"), List.of("te", "fi"), false));
+        assertFalse(CamelHumps.matches(CamelHumps.split("getTestField"), List.of("te", "fi"), true));
+        assertFalse(CamelHumps.matches(CamelHumps.split("getTestField"), List.of("g", "F"), false));
+    }
+
+    @Test
+    public void testFindNamesByPrefixAndCamelHumps() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("Fields.java"), """
+                public class Fields {
+                    static final int MAX_VALUE = 1;
+                    int getTestField() { return 0; }
+                    int getTestFieldValue() { return 0; }
+                    String getText() { return ""; }
+                    void gotTooFar() { }
+                    void setTestField() { }
+                    void getAnExtremelyLongMethodNameThatExceedsThePrefixLimit() { }
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        assertEquals(Set.of("getTestField", "getTestFieldValue"), find("getTest*", SymbolType.METHOD, MatchMode.PREFIX, false));
+        assertEquals(Set.of("getTestField", "getTestFieldValue", "getText"), find("GETTE", SymbolType.METHOD, MatchMode.PREFIX, false));
+        assertEquals(Set.of(), find("GETTE", SymbolType.METHOD, MatchMode.PREFIX, true));
+        assertEquals(Set.of("getAnExtremelyLongMethodNameThatExceedsThePrefixLimit"),
+                find("getAnExtremelyLongMethodNameThatExceeds", SymbolType.METHOD, MatchMode.PREFIX, false));
+        assertEquals(Set.of(), find("getAnExtremelyLongMethodNameThatExceedsTheSuffix", SymbolType.METHOD, MatchMode.PREFIX, false));
+
+        assertEquals(Set.of("getTestField", "getTestFieldValue", "gotTooFar"), find("gTF", SymbolType.METHOD, MatchMode.CAMEL, false));
+        assertEquals(Set.of("getTestField", "getTestFieldValue"), find("getTeFi", SymbolType.METHOD, MatchMode.CAMEL, false));
+        assertEquals(Set.of("getTestField", "getTestFieldValue", "gotTooFar", "setTestField"), find("TF", SymbolType.METHOD, MatchMode.CAMEL, false));
+        assertEquals(Set.of("getTestFieldValue"), find("tFV", SymbolType.METHOD, MatchMode.CAMEL, false));
+        assertEquals(Set.of("MAX_VALUE"), find("MV", SymbolType.FIELD, MatchMode.CAMEL, true));
+        assertEquals(Set.of("Fields"), find("Fi", SymbolType.CLASS, MatchMode.CAMEL, false));
+    }
+
+    @Test
+    public void compareWithTermEnumeration() throws IOException, InterruptedException {
+        List<String> names = generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        List<String> prefixes = List.of("getTest", "parseQuery", "buildIn", "cacheResultT", "se");
+        List<String> camels = List.of("gTF", "pQR", "bIT", "sRC", "getTeFi");
+
+        try (IndexReader reader = IndexShards.openReader(indexDirectory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            List<Query> indexed = new ArrayList<>();
+            List<Query> enumerated = new ArrayList<>();
+            for (String prefix : prefixes) {
+                Query query = QueryExecutor.buildQuery(prefix, SymbolType.METHOD, MatchMode.PREFIX, false);
+                Query prefixQuery = new PrefixQuery(new Term(IndexSchema.contentLowercaseField(SymbolType.METHOD), IndexSchema.normalize(prefix)));
+                assertEquals(searcher.count(prefixQuery), searcher.count(query), prefix);
+                indexed.add(query);
+                enumerated.add(prefixQuery);
+            }
+            for (String camel : camels) {
+                Query query = QueryExecutor.buildQuery(camel, SymbolType.METHOD, MatchMode.CAMEL, false);
+                Query fullScan = new CamelHumpsQuery(new TermQuery(new Term(IndexSchema.TYPE, SymbolType.METHOD.getName())),
+                        CamelHumps.splitQuery(camel), false);
+                List<String> queryHumps = CamelHumps.splitQuery(camel);
+                long expected = names.stream().filter(name -> CamelHumps.matches(CamelHumps.split(name), queryHumps, false)).count();
+                assertEquals(expected, searcher.count(query), camel);
+                indexed.add(query);
+                enumerated.add(fullScan);
+            }
+
+            long indexedNanos = 0;
+            long enumeratedNanos = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                indexedNanos += run(searcher, indexed);
+                enumeratedNanos += run(searcher, enumerated);
+            }
+            int queries = MEASURED_ROUNDS * indexed.size();
+            logger.info("Документов: {}, имен методов: {}", reader.numDocs(), names.size());
+            logger.info("Префиксы и части имен по индексу: {} мкс/запрос", indexedNanos / queries / 1000);
+            logger.info("Перебор терминов и проверка имен: {} мкс/запрос", enumeratedNanos / queries / 1000);
+        }
+    }
+
+    private static Set<String> find(String query, SymbolType type, MatchMode mode, boolean caseSensitive) throws IOException {
+        CollectingResultSink sink = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest(query, type, mode, caseSensitive), sink);
+        return sink.getResults().stream().map(SymbolResult::content).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static long run(IndexSearcher searcher, List<Query> queries) throws IOException {
+        long start = System.nanoTime();
+        for (Query query : queries) {
+            searcher.search(query, 10);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private List<String> generateCorpus() throws IOException {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n");
+            for (int j = 0; j < METHODS_PER_FILE; j++) {
+                StringBuilder name = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+                for (int k = 1 + random.nextInt(3); k > 0; k--) {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    name.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+                }
+                name.append(j);
+                names.add(name.toString());
+                source.append("    void ").append(name).append("() { }\n");
+            }
+            source.append("}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+        return names;
+    }
+}
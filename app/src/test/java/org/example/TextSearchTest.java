@@ -0,0 +1,137 @@
+package org.example;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Полнотекстовый поиск внутри строк: слова, фразы, слова на расстоянии, ранжирование
+ * и сравнение с проверкой всех литералов регулярным выражением (как grep).
+ */
+public class TextSearchTest {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int FILES = 300;
+    private static final int LITERALS_PER_FILE = 300;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static final String[] WORDS = {"connection", "timeout", "exceeded", "read", "write", "failed", "retry",
+            "server", "client", "request", "response", "closed", "invalid", "token", "user", "session"};
+
+    @TempDir
+    Path sourceDirectory;
+
+    @TempDir
+    Path indexDirectory;
+
+    @BeforeEach
+    public void useTemporaryIndex() {
+        JavaSourceIndexer.setIndexDirectory(indexDirectory);
+    }
+
+    @AfterEach
+    public void closeSearchers() {
+        IndexSearchers.close();
+    }
+
+    @Test
+    public void testFindWordsAndPhrasesInStrings() throws IOException, InterruptedException {
+        Files.writeString(sourceDirectory.resolve("Messages.java"), """
+                public class Messages {
+                    static final String TIMEOUT = "Connection timeout exceeded";
+                    void report() {
+                        log("Read timeout while waiting for the server connection");
+                        log("timeout");
+                        log("Connection refused");
+                    }
+                }
+                """);
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        assertEquals(List.of("Connection timeout exceeded"), find("\"connection timeout\"", SymbolType.STRING_CONSTANT));
+        assertEquals(List.of(), find("\"timeout connection\"", SymbolType.STRING_CONSTANT));
+
+        // Короткая строка со словом получает больший вес BM25, чем длинная.
+        // Значение константы индексируется и как строковый литерал.
+        assertEquals(List.of("timeout", "Connection timeout exceeded", "Read timeout while waiting for the server connection"),
+                find("TIMEOUT", SymbolType.STRING_LITERAL));
+        assertEquals(List.of("Connection timeout exceeded", "Read timeout while waiting for the server connection"),
+                find("connection timeout", SymbolType.STRING_LITERAL));
+        assertEquals(List.of(), find("\"read connection\"~3", SymbolType.STRING_LITERAL));
+        assertEquals(List.of("Read timeout while waiting for the server connection"),
+                find("\"read connection\"~10", SymbolType.STRING_LITERAL));
+
+        assertThrows(IllegalArgumentException.class, () -> find("timeout", SymbolType.METHOD));
+        assertThrows(IllegalArgumentException.class, () -> find("\"timeout", SymbolType.STRING_LITERAL));
+    }
+
+    @Test
+    public void compareTextQueryWithFullScan() throws IOException, InterruptedException {
+        generateCorpus();
+        JavaSourceIndexer.indexJavaSources(sourceDirectory.toString(), true);
+
+        Query text = QueryExecutor.buildQuery("\"connection timeout\"", SymbolType.STRING_LITERAL, MatchMode.TEXT, false);
+        Query fullScan = new RegexVerifyingQuery(new TermQuery(new Term(IndexSchema.TYPE, SymbolType.STRING_LITERAL.getName())),
+                Pattern.compile("\\bconnection\\W+timeout\\b", Pattern.CASE_INSENSITIVE));
+
+        try (IndexReader reader = IndexShards.openReader(indexDirectory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            assertTrue(searcher.count(text) > 0);
+            assertEquals(searcher.count(fullScan), searcher.count(text));
+
+            long textNanos = 0;
+            long fullScanNanos = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                searcher.search(text, 10);
+                textNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                searcher.search(fullScan, 10);
+                fullScanNanos += System.nanoTime() - start;
+            }
+            logger.info("Документов: {}, фраза \"connection timeout\": по словам {} мкс, проверка всех литералов {} мкс",
+                    reader.numDocs(), textNanos / MEASURED_ROUNDS / 1000, fullScanNanos / MEASURED_ROUNDS / 1000);
+        }
+    }
+
+    private static List<String> find(String query, SymbolType type) throws IOException {
+        CollectingResultSink sink = new CollectingResultSink();
+        QueryExecutor.execute(new SearchRequest(query, type, MatchMode.TEXT, false), sink);
+        return sink.getResults().stream().map(SymbolResult::content).toList();
+    }
+
+    private void generateCorpus() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder source = new StringBuilder("public class Service" + i + " {\n    void run() {\n");
+            for (int j = 0; j < LITERALS_PER_FILE; j++) {
+                source.append("        log(\"");
+                for (int k = 2 + random.nextInt(5); k > 0; k--) {
+                    source.append(WORDS[random.nextInt(WORDS.length)]).append(k > 1 ? " " : "");
+                }
+                source.append("\");\n");
+            }
+            source.append("    }\n}\n");
+            Files.writeString(sourceDirectory.resolve("Service" + i + ".java"), source);
+        }
+    }
+}